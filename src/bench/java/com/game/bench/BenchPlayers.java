@@ -0,0 +1,36 @@
+package com.game.bench;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class BenchPlayers {
+
+    private BenchPlayers() {
+    }
+
+    static List<Player> page(int size) {
+        Random random = new Random(42);
+        List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Player player = new Player();
+            player.setId((long) i + 1);
+            player.setName("Игрок" + i);
+            player.setTitle("Хранитель северных врат " + i % 100);
+            player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+            player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+            player.setExperience(random.nextInt(10_000_001));
+            player.setLevel((int) ((Math.sqrt(2500 + 200 * player.getExperience()) - 50) / 100));
+            player.setUntilNextLevel(50 * (player.getLevel() + 1) * (player.getLevel() + 2) - player.getExperience());
+            player.setBirthday(new Date(946_684_800_000L + (long) random.nextInt(1_000_000) * 3_600_000L));
+            player.setBanned(random.nextInt(10) == 0);
+            players.add(player);
+        }
+        return players;
+    }
+}
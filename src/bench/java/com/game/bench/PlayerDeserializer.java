@@ -0,0 +1,135 @@
+package com.game.bench;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.IOException;
+import java.sql.Date;
+
+/**
+ * Reads a {@link Player} field by field without reflection. Accepts what the bean deserializer accepted for
+ * these types: numbers or numeric strings, enum names or ordinals, millis or date strings; unknown fields are
+ * skipped unless FAIL_ON_UNKNOWN_PROPERTIES is on.
+ */
+final class PlayerDeserializer extends StdDeserializer<Player> {
+    private static final Race[] RACES = Race.values();
+    private static final Profession[] PROFESSIONS = Profession.values();
+
+    PlayerDeserializer() {
+        super(Player.class);
+    }
+
+    @Override
+    public Player deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        Player player = new Player();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "id":
+                    player.setId(isNull(p, value) ? null : _parseLongPrimitive(p, ctxt));
+                    break;
+                case "name":
+                    player.setName(readString(p, ctxt, value));
+                    break;
+                case "title":
+                    player.setTitle(readString(p, ctxt, value));
+                    break;
+                case "race":
+                    player.setRace(readEnum(p, ctxt, value, Race.class, RACES));
+                    break;
+                case "profession":
+                    player.setProfession(readEnum(p, ctxt, value, Profession.class, PROFESSIONS));
+                    break;
+                case "experience":
+                    player.setExperience(readInt(p, ctxt, value));
+                    break;
+                case "level":
+                    player.setLevel(readInt(p, ctxt, value));
+                    break;
+                case "untilNextLevel":
+                    player.setUntilNextLevel(readInt(p, ctxt, value));
+                    break;
+                case "birthday":
+                    player.setBirthday(readDate(p, ctxt, value));
+                    break;
+                case "banned":
+                    player.setBanned(isNull(p, value) ? null : _parseBooleanPrimitive(p, ctxt));
+                    break;
+                default:
+                    if (ctxt.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)) {
+                        ctxt.handleUnknownProperty(p, this, player, field);
+                    }
+                    p.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            return (Player) ctxt.handleUnexpectedToken(Player.class, p);
+        }
+        return player;
+    }
+
+    private String readString(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        return value == JsonToken.VALUE_NULL ? null : _parseString(p, ctxt);
+    }
+
+    private Integer readInt(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return p.getIntValue();
+        }
+        return isNull(p, value) ? null : _parseIntPrimitive(p, ctxt);
+    }
+
+    // Wrapper types read null and "" as null, where the primitive parsers would return zero.
+    private static boolean isNull(JsonParser p, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL || value == JsonToken.VALUE_STRING && p.getText().trim().isEmpty();
+    }
+
+    private <E extends Enum<E>> E readEnum(JsonParser p, DeserializationContext ctxt, JsonToken value,
+                                           Class<E> type, E[] constants) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            String name = p.getText();
+            for (E constant : constants) {
+                if (constant.name().equals(name)) {
+                    return constant;
+                }
+            }
+            return type.cast(ctxt.handleWeirdStringValue(type, name, "not one of the values accepted for Enum class"));
+        }
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            int ordinal = p.getIntValue();
+            if (ordinal >= 0 && ordinal < constants.length) {
+                return constants[ordinal];
+            }
+            return type.cast(ctxt.handleWeirdNumberValue(type, ordinal, "index value outside legal index range"));
+        }
+        return type.cast(ctxt.handleUnexpectedToken(type, p));
+    }
+
+    private Date readDate(JsonParser p, DeserializationContext ctxt, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return new Date(p.getLongValue());
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        java.util.Date date = _parseDate(p, ctxt);
+        return date == null ? null : new Date(date.getTime());
+    }
+}
@@ -0,0 +1,65 @@
+package com.game.bench;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Race;
+import com.game.metrics.MetricsRegistry;
+import com.game.service.PlayerScan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// A weakly filtered first page ordered by experience, scanned on the calling thread against the segmented scan on
+// one thread per core.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerScanBenchmark {
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private PlayerScan scan;
+    private List<Player> players;
+    private List<Predicate<Player>> filters;
+    private Comparator<Player> order;
+
+    @Setup
+    public void setup() {
+        scan = new PlayerScan(0, 4096, "parallel".equals(mode) ? 0 : Long.MAX_VALUE, new MetricsRegistry());
+        players = BenchPlayers.page(size);
+        Collections.shuffle(players);
+        filters = Collections.singletonList(player -> player.getRace() != Race.TROLL);
+        order = PlayerScan.comparator(PlayerOrder.EXPERIENCE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        scan.destroy();
+    }
+
+    @Benchmark
+    public PlayerScan.Matches firstPage() {
+        return scan.scan(players, filters, order, 20);
+    }
+}
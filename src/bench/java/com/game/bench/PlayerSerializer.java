@@ -0,0 +1,107 @@
+package com.game.bench;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.IOException;
+import java.sql.Date;
+
+/**
+ * Writes a {@link Player} exactly as field-visibility reflection would (declaration order, nulls included,
+ * birthday as epoch millis), but straight from the getters, with field names and enum values pre-encoded.
+ */
+final class PlayerSerializer extends StdSerializer<Player> {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString RACE = new SerializedString("race");
+    private static final SerializedString PROFESSION = new SerializedString("profession");
+    private static final SerializedString EXPERIENCE = new SerializedString("experience");
+    private static final SerializedString LEVEL = new SerializedString("level");
+    private static final SerializedString UNTIL_NEXT_LEVEL = new SerializedString("untilNextLevel");
+    private static final SerializedString BIRTHDAY = new SerializedString("birthday");
+    private static final SerializedString BANNED = new SerializedString("banned");
+
+    private static final SerializableString[] RACES = names(Race.values());
+    private static final SerializableString[] PROFESSIONS = names(Profession.values());
+
+    PlayerSerializer() {
+        super(Player.class);
+    }
+
+    @Override
+    public void serialize(Player player, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(player);
+        gen.writeFieldName(ID);
+        if (player.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(player.getId());
+        }
+        gen.writeFieldName(NAME);
+        gen.writeString(player.getName());
+        gen.writeFieldName(TITLE);
+        gen.writeString(player.getTitle());
+        gen.writeFieldName(RACE);
+        writeEnum(gen, RACES, player.getRace());
+        gen.writeFieldName(PROFESSION);
+        writeEnum(gen, PROFESSIONS, player.getProfession());
+        gen.writeFieldName(EXPERIENCE);
+        writeInt(gen, player.getExperience());
+        gen.writeFieldName(LEVEL);
+        writeInt(gen, player.getLevel());
+        gen.writeFieldName(UNTIL_NEXT_LEVEL);
+        writeInt(gen, player.getUntilNextLevel());
+        gen.writeFieldName(BIRTHDAY);
+        writeDate(gen, provider, player.getBirthday());
+        gen.writeFieldName(BANNED);
+        if (player.getBanned() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeBoolean(player.getBanned());
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeInt(JsonGenerator gen, Integer value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeEnum(JsonGenerator gen, SerializableString[] names, Enum<?> value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(names[value.ordinal()]);
+        }
+    }
+
+    // Same output as Jackson's SqlDateSerializer: millis, or yyyy-MM-dd when timestamps are switched off.
+    private static void writeDate(JsonGenerator gen, SerializerProvider provider, Date value) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            gen.writeNumber(value.getTime());
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+
+    private static SerializableString[] names(Enum<?>[] values) {
+        SerializableString[] names = new SerializableString[values.length];
+        for (Enum<?> value : values) {
+            names[value.ordinal()] = new SerializedString(value.name());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,68 @@
+package com.game.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The application's field-visibility mapper against the same mapper with the hand-written PlayerModule, on
+// List<Player> responses of the size the players API returns.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerSerializerBenchmark {
+    private static final TypeReference<List<Player>> PLAYERS = new TypeReference<List<Player>>() {
+    };
+
+    @Param({"reflective", "handwritten"})
+    public String mapper;
+
+    @Param({"40", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Player> players;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper reflective = WebConfig.objectMapper(new JsonFactory());
+        objectMapper = "handwritten".equals(mapper)
+                ? WebConfig.objectMapper(new JsonFactory()).registerModule(new PlayerModule()) : reflective;
+        players = BenchPlayers.page(size);
+        encoded = objectMapper.writeValueAsBytes(players);
+        if (!Arrays.equals(encoded, reflective.writeValueAsBytes(players))) {
+            throw new IllegalStateException("The hand-written codec writes different JSON");
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(players);
+    }
+
+    @Benchmark
+    public List<Player> deserialize() throws IOException {
+        return objectMapper.readValue(encoded, PLAYERS);
+    }
+}
@@ -0,0 +1,61 @@
+package com.game.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.AppConfig;
+import com.game.config.JsonCompressionFilter;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.metrics.StartupTimeline;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// Starts the root and web contexts the way the servlet container does (profiles from -Dspring.profiles.active),
+// serves the requests a client makes first and prints the startup timeline. Under -XX:ArchiveClassesAtExit this is
+// the AppCDS training run; see the appcds execution in the bench profile.
+public class StartupTraining {
+
+    public static void main(String[] args) throws Exception {
+        MockServletContext servletContext = new MockServletContext();
+        AnnotationConfigWebApplicationContext root = new AnnotationConfigWebApplicationContext();
+        root.setServletContext(servletContext);
+        root.register(AppConfig.class);
+        root.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, root);
+
+        AnnotationConfigWebApplicationContext web = new AnnotationConfigWebApplicationContext();
+        web.setParent(root);
+        web.setServletContext(servletContext);
+        web.register(WebConfig.class);
+        web.refresh();
+
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(web)
+                .addFilters(root.getBean(JsonCompressionFilter.class))
+                .build();
+        ObjectMapper mapper = WebConfig.objectMapper(new JsonFactory());
+        mockMvc.perform(get("/rest/players?pageSize=20&order=EXPERIENCE"));
+        for (Player player : BenchPlayers.page(100)) {
+            player.setId(null);
+            mockMvc.perform(post("/rest/players")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(player)));
+        }
+        mockMvc.perform(get("/rest/players?pageSize=20&order=EXPERIENCE").header("Accept-Encoding", "gzip"));
+        mockMvc.perform(get("/rest/players/count?name=1"));
+        mockMvc.perform(get("/rest/players/1"));
+        mockMvc.perform(post("/rest/players/1").contentType(MediaType.APPLICATION_JSON).content("{\"banned\":true}"));
+        mockMvc.perform(get("/rest/leaderboard?top=10"));
+        mockMvc.perform(get("/rest/players/stats"));
+
+        System.out.println(root.getBean(StartupTimeline.class).report(20));
+        web.close();
+        root.close();
+    }
+}
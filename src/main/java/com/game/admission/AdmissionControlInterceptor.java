@@ -0,0 +1,222 @@
+package com.game.admission;
+
+import com.game.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for the REST API. Every client gets a token bucket per rule ("METHOD pattern=rate/burst",
+ * first match wins), and list queries that have to scan everything (no filter, or a page above the limit)
+ * additionally share a small number of slots. Rejections are answered at once with 429 and Retry-After. Buckets are
+ * kept for the {@code maxClients} most recently seen clients only.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+    private static final List<String> FILTERS = Arrays.asList("name", "title", "race", "profession", "after",
+            "before", "banned", "minExperience", "maxExperience", "minLevel", "maxLevel");
+
+    private final List<Rule> rules = new ArrayList<>();
+    // Guarded by itself; in access order, so the least recently seen client is forgotten first.
+    private final Map<String, TokenBucket> buckets;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+    private final String clientHeader;
+    private final Set<String> trustedProxies = new HashSet<>();
+    private final int expensivePageSize;
+    private final Semaphore expensiveSlots;
+    private final long expensiveQueueTimeoutMs;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final MetricsRegistry metricsRegistry;
+
+    public AdmissionControlInterceptor(@Value("${game.admission.rules}") String[] rules,
+                                       @Value("${game.admission.client-header}") String clientHeader,
+                                       @Value("${game.admission.trusted-proxies}") String[] trustedProxies,
+                                       @Value("${game.admission.max-clients}") int maxClients,
+                                       @Value("${game.admission.expensive.page-size}") int expensivePageSize,
+                                       @Value("${game.admission.expensive.max-concurrent}") int maxConcurrent,
+                                       @Value("${game.admission.expensive.queue-timeout-ms}") long queueTimeoutMs,
+                                       MetricsRegistry metricsRegistry) {
+        for (String rule : rules) {
+            this.rules.add(Rule.parse(rule.trim()));
+        }
+        this.clientHeader = clientHeader;
+        for (String proxy : trustedProxies) {
+            if (!proxy.trim().isEmpty()) {
+                this.trustedProxies.add(proxy.trim());
+            }
+        }
+        this.buckets = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > maxClients;
+            }
+        };
+        this.expensivePageSize = expensivePageSize;
+        this.expensiveSlots = new Semaphore(maxConcurrent, true);
+        this.expensiveQueueTimeoutMs = queueTimeoutMs;
+        this.metricsRegistry = metricsRegistry;
+        metricsRegistry.gauge("admission_queued", "Requests waiting for an expensive-query slot", "gauge",
+                queued::get);
+        metricsRegistry.gauge("admission_expensive_in_flight", "Expensive queries being evaluated", "gauge",
+                () -> maxConcurrent - expensiveSlots.availablePermits());
+        metricsRegistry.gauge("admission_clients", "Clients with a token bucket", "gauge", () -> {
+            synchronized (buckets) {
+                return buckets.size();
+            }
+        });
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        long now = System.nanoTime();
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if (!rule.matches(request.getMethod(), path, pathMatcher)) {
+                continue;
+            }
+            long waitNanos = bucket(client(request) + ' ' + i, rule, now).tryConsume(now);
+            if (waitNanos > 0) {
+                return reject(response, rule.name, "rate", waitNanos);
+            }
+            break;
+        }
+        if (isExpensive(request, path)) {
+            return admitExpensive(request, response);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            expensiveSlots.release();
+        }
+    }
+
+    private boolean admitExpensive(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!expensiveSlots.tryAcquire()) {
+            long start = System.nanoTime();
+            queued.incrementAndGet();
+            metricsRegistry.counter("admission_queued_total", "Expensive queries that had to wait for a slot")
+                    .increment();
+            boolean acquired;
+            try {
+                acquired = expensiveSlots.tryAcquire(expensiveQueueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                queued.decrementAndGet();
+                metricsRegistry.histogram("admission_queue_wait_seconds", "Time spent waiting for a slot",
+                        MetricsRegistry.LATENCY_BUCKETS).observeNanos(System.nanoTime() - start);
+            }
+            if (!acquired) {
+                return reject(response, "expensive", "concurrency",
+                        TimeUnit.MILLISECONDS.toNanos(expensiveQueueTimeoutMs));
+            }
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    private boolean reject(HttpServletResponse response, String rule, String reason, long retryAfterNanos)
+            throws IOException {
+        metricsRegistry.counter("admission_rejected_total", "Requests rejected with 429",
+                "rule", rule, "reason", reason).increment();
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+        return false;
+    }
+
+    private boolean isExpensive(HttpServletRequest request, String path) {
+        if (!"GET".equals(request.getMethod()) || !"/rest/players".equals(path)) {
+            return false;
+        }
+        String pageSize = request.getParameter("pageSize");
+        if (pageSize != null && pageSize.chars().allMatch(Character::isDigit)
+                && (pageSize.length() > 9 || Integer.parseInt(pageSize) > expensivePageSize)) {
+            return true;
+        }
+        return FILTERS.stream().noneMatch(filter -> StringUtils.hasText(request.getParameter(filter)));
+    }
+
+    // Each proxy appends the address it got the request from, and only what our own proxies appended can be believed:
+    // the client writes whatever it likes in front of it. So the hops are walked from the connection's own address
+    // leftwards while they are trusted proxies, and the first one that is not is the client.
+    private String client(HttpServletRequest request) {
+        String hop = request.getRemoteAddr();
+        String header = clientHeader.isEmpty() ? null : request.getHeader(clientHeader);
+        if (header == null) {
+            return hop;
+        }
+        String[] hops = header.split(",");
+        for (int i = hops.length - 1; i >= 0 && trustedProxies.contains(hop); i--) {
+            hop = hops[i].trim();
+        }
+        return hop;
+    }
+
+    private TokenBucket bucket(String key, Rule rule, long now) {
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(key, ignored -> new TokenBucket(rule.ratePerSecond, rule.burst, now));
+        }
+    }
+
+    private static final class Rule {
+        private final String name;
+        private final String method;
+        private final String pattern;
+        private final double ratePerSecond;
+        private final double burst;
+
+        private Rule(String name, String method, String pattern, double ratePerSecond, double burst) {
+            this.name = name;
+            this.method = method;
+            this.pattern = pattern;
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        // "GET /rest/**=200/400": method (or *), Ant path pattern, tokens per second / bucket size.
+        private static Rule parse(String rule) {
+            String[] target = rule.substring(0, rule.indexOf('=')).trim().split("\\s+");
+            String[] limit = rule.substring(rule.indexOf('=') + 1).trim().split("/");
+            if (target.length != 2 || limit.length != 2) {
+                throw new IllegalArgumentException("Admission rule must look like 'GET /rest/**=100/200': " + rule);
+            }
+            return new Rule(target[0] + ' ' + target[1], target[0], target[1], Double.parseDouble(limit[0]),
+                    Double.parseDouble(limit[1]));
+        }
+
+        private boolean matches(String method, String path, AntPathMatcher pathMatcher) {
+            return ("*".equals(this.method) || this.method.equalsIgnoreCase(method))
+                    && pathMatcher.match(pattern, path);
+        }
+    }
+}
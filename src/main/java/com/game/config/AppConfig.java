@@ -1,42 +1,64 @@
 package com.game.config;
 
+import com.game.metrics.EntityLoadCounter;
+import com.game.metrics.MetricsRegistry;
+import com.game.repository.RepositoryCircuitBreaker;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.stereotype.Controller;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
 import java.util.Properties;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
+/**
+ * Root context: everything except the web layer, which {@link WebConfig} registers in the servlet context.
+ */
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.game")
-@EnableJpaRepositories(basePackages = "com.game.repository")
+@ComponentScan(basePackages = "com.game", excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ANNOTATION, classes = {Controller.class, EnableWebMvc.class}))
+@PropertySource("classpath:game.properties")
 public class AppConfig {
 
+    @Profile("!sharded")
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
-        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
-        em.setPackagesToScan("com.game.entity");
-
-        JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
-        em.setJpaVendorAdapter(vendorAdapter);
-        em.setJpaProperties(additionalProperties());
-
+    @DependsOn("flyway")
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(EntityLoadCounter entityLoadCounter,
+                                                                       Environment environment) {
+        LocalContainerEntityManagerFactoryBean em = persistenceUnit(dataSource(), entityLoadCounter);
+        // The factory is created eagerly even in fast-boot mode (it may register class transformers), so there
+        // Hibernate builds it on a background thread and the first use waits for it.
+        if (environment.acceptsProfiles(Profiles.of("fast-boot"))) {
+            em.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+        }
         return em;
     }
 
@@ -60,10 +82,16 @@ public class AppConfig {
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
                 .ignoreFailedDrops(true)
-                .addScript("test.sql")
                 .build();
     }
 
+    @Profile("!sharded")
+    @Bean(initMethod = "migrate")
+    public Flyway flyway(DataSource dataSource) {
+        return migrations(dataSource);
+    }
+
+    @Profile("!sharded")
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -72,15 +100,77 @@ public class AppConfig {
         return transactionManager;
     }
 
+    @Profile("fast-boot")
+    @Bean
+    public static LazyInitialization lazyInitialization() {
+        return new LazyInitialization();
+    }
+
+    // Post-processors are created before @Value placeholders can be resolved, so the settings are read directly.
+    @Bean
+    public static RepositoryCircuitBreaker repositoryCircuitBreaker(Environment environment,
+                                                                    MetricsRegistry metricsRegistry) {
+        return new RepositoryCircuitBreaker(
+                environment.getRequiredProperty("game.breaker.window", Integer.class),
+                environment.getRequiredProperty("game.breaker.min-calls", Integer.class),
+                environment.getRequiredProperty("game.breaker.failure-rate", Double.class),
+                environment.getRequiredProperty("game.breaker.slow-call-ms", Long.class),
+                environment.getRequiredProperty("game.breaker.open-ms", Long.class),
+                metricsRegistry);
+    }
+
     @Bean
     public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
         return new PersistenceExceptionTranslationPostProcessor();
     }
 
-    private Properties additionalProperties() {
+    static LocalContainerEntityManagerFactoryBean persistenceUnit(DataSource dataSource,
+                                                                  EntityLoadCounter entityLoadCounter) {
+        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setDataSource(dataSource);
+        em.setPackagesToScan("com.game.entity");
+
+        JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        em.setJpaVendorAdapter(vendorAdapter);
+        em.setJpaProperties(additionalProperties());
+        em.getJpaPropertyMap().put(AvailableSettings.INTERCEPTOR, entityLoadCounter);
+
+        return em;
+    }
+
+    // Databases created by the old init.sql already hold V1 and V2, so they are baselined at version 2.
+    static Flyway migrations(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .placeholders(Collections.singletonMap("tableOptions", tableOptions(dataSource)))
+                .baselineOnMigrate(true)
+                .baselineVersion("2")
+                .load();
+    }
+
+    // The MySQL engine and character set of the old init.sql, which also decide the collation of LIKE and ORDER BY;
+    // H2 has neither.
+    private static String tableOptions(DataSource dataSource) {
+        try {
+            Object product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "MySQL".equals(product) ? "ENGINE = InnoDB DEFAULT CHARACTER SET = utf8" : "";
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot tell which database to migrate", e);
+        }
+    }
+
+    private static Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.generate_statistics", "true");
 
         return properties;
     }
-}
\ No newline at end of file
+
+    @Profile("!sharded")
+    @Configuration
+    @EnableJpaRepositories(basePackages = "com.game.repository")
+    static class RepositoryConfig {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,247 @@
+package com.game.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips JSON responses once they grow past a threshold. The body is held back until the threshold is reached,
+ * so small responses keep their Content-Length and anything that is not JSON (pages, event streams) is passed
+ * straight through. A response written with a {@link WriteListener} goes out uncompressed.
+ */
+@Component
+public class JsonCompressionFilter extends OncePerRequestFilter {
+    private final int threshold;
+
+    public JsonCompressionFilter(@Value("${game.compression.json-threshold-bytes}") int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!acceptsGzip(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse compressing = new CompressingResponse(response);
+        chain.doFilter(request, compressing);
+        if (isAsyncStarted(request)) {
+            compressing.release();
+        } else {
+            compressing.finish();
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING))) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")
+                        && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType) || mediaType.getSubtype().endsWith("+json");
+    }
+
+    private enum Mode {UNDECIDED, BUFFERING, GZIP, DIRECT}
+
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+        private final HttpServletResponse response;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Mode mode = Mode.UNDECIDED;
+        private OutputStream gzip;
+        private long contentLength = -1;
+        private ServletOutputStream outputStream;
+        private ServletOutputStream nonBlocking;
+        private PrintWriter writer;
+
+        private CompressingResponse(HttpServletResponse response) {
+            super(response);
+            this.response = response;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (mode == Mode.DIRECT) {
+                response.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        CompressingResponse.this.write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        CompressingResponse.this.flushStream();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return nonBlocking == null || nonBlocking.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        CompressingResponse.this.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else {
+                flushStream();
+            }
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (mode == Mode.UNDECIDED) {
+                mode = isJson(getContentType()) ? Mode.BUFFERING : direct();
+            }
+            if (mode == Mode.BUFFERING) {
+                buffer.write(bytes, offset, length);
+                if (buffer.size() >= threshold) {
+                    startGzip();
+                }
+            } else if (mode == Mode.GZIP) {
+                gzip.write(bytes, offset, length);
+            } else {
+                response.getOutputStream().write(bytes, offset, length);
+            }
+        }
+
+        // Non-blocking writes go out as soon as the container is ready for them, so they can be neither held back nor
+        // compressed: the response is passed through uncompressed from here on, starting with what was held back.
+        private void setWriteListener(WriteListener writeListener) {
+            if (mode == Mode.GZIP) {
+                throw new IllegalStateException("The response is already being compressed");
+            }
+            try {
+                release();
+                nonBlocking = response.getOutputStream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            nonBlocking.setWriteListener(writeListener);
+        }
+
+        // Held-back JSON stays buffered: a flush must not commit the response before the size is known.
+        private void flushStream() throws IOException {
+            if (mode == Mode.GZIP) {
+                gzip.flush();
+            } else if (mode == Mode.DIRECT) {
+                response.flushBuffer();
+            }
+        }
+
+        private Mode direct() {
+            if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            }
+            return Mode.DIRECT;
+        }
+
+        private void startGzip() throws IOException {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            gzip = new GZIPOutputStream(response.getOutputStream(), 8192, true);
+            buffer.writeTo(gzip);
+            buffer.reset();
+            mode = Mode.GZIP;
+        }
+
+        // An async response outlives this filter, so whatever it writes later goes out uncompressed.
+        private void release() throws IOException {
+            if (mode == Mode.BUFFERING) {
+                mode = direct();
+                buffer.writeTo(response.getOutputStream());
+                buffer.reset();
+            } else if (mode == Mode.UNDECIDED) {
+                mode = direct();
+            }
+        }
+
+        private void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (mode == Mode.GZIP) {
+                gzip.close();
+            } else if (mode == Mode.BUFFERING) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                response.setContentLength(buffer.size());
+                buffer.writeTo(response.getOutputStream());
+            } else if (mode == Mode.UNDECIDED && contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.game.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fast-boot mode: application beans that do not insist on eager creation with {@code @Lazy(false)} are created on
+ * first use, so the context is up before the database is touched. Once it is, a background thread creates the
+ * rest; a request that needs a bean still being built simply waits for it. Spring Data repositories count as
+ * application beans too, although they carry an explicit lazy flag taken from their bootstrap mode.
+ */
+class LazyInitialization implements BeanFactoryPostProcessor, ApplicationListener<ContextRefreshedEvent>,
+        ApplicationContextAware {
+    private final List<String> lazyBeans = new ArrayList<>();
+    private ApplicationContext context;
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setApplicationContext(ApplicationContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition instanceof AbstractBeanDefinition && definition.isSingleton() && !definition.isAbstract()
+                    && definition.getRole() == BeanDefinition.ROLE_APPLICATION
+                    && (((AbstractBeanDefinition) definition).getLazyInit() == null || isRepository(definition))) {
+                definition.setLazyInit(true);
+                lazyBeans.add(name);
+            }
+        }
+    }
+
+    private boolean isRepository(BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        return className != null && ClassUtils.isPresent(className, null) && RepositoryFactoryBeanSupport.class
+                .isAssignableFrom(ClassUtils.resolveClassName(className, null));
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != context) {
+            return;
+        }
+        Thread warmUp = new Thread(() -> {
+            for (String name : lazyBeans) {
+                try {
+                    beanFactory.getBean(name);
+                } catch (BeansException e) {
+                    // Left for the request that needs the bean, which reports the failure to its caller.
+                }
+            }
+        }, "lazy-init");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+}
@@ -0,0 +1,66 @@
+package com.game.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+/**
+ * One-off split of shards that each start as a full copy of the unsharded database: every shard keeps only the
+ * players in its residue class and from then on generates ids in that class, so id % shards names the owning shard.
+ * It deletes players, so it never runs on startup; run it once, with the application stopped, for the
+ * {@code game.shards.urls} in their configured order:
+ * <pre>java -cp ... com.game.config.ShardSplit &lt;username&gt; &lt;password&gt; &lt;url&gt;...</pre>
+ */
+public final class ShardSplit {
+
+    private ShardSplit() {
+    }
+
+    public static void main(String[] args) throws MetaDataAccessException {
+        if (args.length < 3) {
+            System.err.println("Usage: ShardSplit <username> <password> <url>...");
+            System.exit(2);
+        }
+        String[] urls = Arrays.copyOfRange(args, 2, args.length);
+        for (int shard = 0; shard < urls.length; shard++) {
+            DataSource dataSource = ShardingConfig.dataSource(urls[shard].trim(), args[0], args[1], shard,
+                    urls.length);
+            System.out.printf("Shard %d (%s): removed %d players of other shards%n", shard, urls[shard],
+                    split(dataSource, shard, urls.length));
+        }
+    }
+
+    /**
+     * Migrates the shard and removes the players of other shards from it, returning how many there were.
+     */
+    public static int split(DataSource dataSource, int shard, int shards) throws MetaDataAccessException {
+        AppConfig.migrations(dataSource).migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        int removed = jdbcTemplate.update("DELETE FROM player WHERE MOD(id, ?) <> ?", shards, shard);
+        // MySQL shards get their id class from the connection's auto_increment settings, H2 from the sequence.
+        if (!"H2".equals(JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName"))) {
+            return removed;
+        }
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM player", Long.class);
+        long next = max - Math.floorMod(max, shards) + shard;
+        if (next <= max || next == 0) {
+            next += shards;
+        }
+        String sequence = jdbcTemplate.queryForObject("SELECT SEQUENCE_NAME FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'PLAYER' AND COLUMN_NAME = 'ID'", String.class);
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next + " INCREMENT BY " + shards);
+        return removed;
+    }
+
+    /**
+     * The number of players on the shard that belong to another one.
+     */
+    public static int misplaced(DataSource dataSource, int shard, int shards) {
+        Integer misplaced = new JdbcTemplate(dataSource).queryForObject(
+                "SELECT COUNT(*) FROM player WHERE MOD(id, ?) <> ?", Integer.class, shards, shard);
+        return misplaced == null ? 0 : misplaced;
+    }
+}
@@ -0,0 +1,100 @@
+package com.game.config;
+
+import com.game.metrics.EntityLoadCounter;
+import com.game.metrics.HibernateMetrics;
+import com.game.metrics.MetricsRegistry;
+import com.game.repository.PlayerRepository;
+import com.game.repository.PlayerShards;
+import com.game.repository.PlayerSlicesImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.support.PersistenceExceptionTranslationInterceptor;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.springframework.data.transaction.ChainedTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+@Configuration
+@Profile("sharded")
+public class ShardingConfig {
+
+    @Bean
+    public PlayerShards playerShards(@Value("${game.shards.urls}") String[] urls,
+                                     @Value("${game.shards.username}") String username,
+                                     @Value("${game.shards.password}") String password,
+                                     @Value("${game.shards.key}") String key,
+                                     @Value("${game.planner.binary-collation}") boolean binaryCollation,
+                                     EntityLoadCounter entityLoadCounter, MetricsRegistry metricsRegistry) {
+        List<PlayerShards.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            DataSource dataSource = dataSource(urls[i].trim(), username, password, i, urls.length);
+            AppConfig.migrations(dataSource).migrate();
+            int misplaced = ShardSplit.misplaced(dataSource, i, urls.length);
+            if (misplaced > 0) {
+                throw new IllegalStateException(String.format("Shard %d of %d (%s) holds %d players of other "
+                        + "shards: check game.shards.urls, or split copies of the unsharded database once with %s",
+                        i, urls.length, urls[i].trim(), misplaced, ShardSplit.class.getName()));
+            }
+
+            LocalContainerEntityManagerFactoryBean em = AppConfig.persistenceUnit(dataSource, entityLoadCounter);
+            em.setPersistenceUnitName("shard" + i);
+            em.afterPropertiesSet();
+            EntityManagerFactory emf = em.getObject();
+            HibernateMetrics.register(emf, metricsRegistry, "shard", String.valueOf(i));
+
+            JpaTransactionManager transactionManager = new JpaTransactionManager(emf);
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(emf);
+            JpaRepositoryFactory factory = new JpaRepositoryFactory(entityManager);
+            factory.addRepositoryProxyPostProcessor((proxyFactory, information) -> {
+                proxyFactory.addAdvice(new PersistenceExceptionTranslationInterceptor(new HibernateJpaDialect()));
+                proxyFactory.addAdvice(new TransactionInterceptor(transactionManager,
+                        new AnnotationTransactionAttributeSource()));
+            });
+            PlayerSlicesImpl slices = new PlayerSlicesImpl();
+            slices.setEntityManager(entityManager);
+            shards.add(new PlayerShards.Shard(factory.getRepository(PlayerRepository.class,
+                    RepositoryComposition.RepositoryFragments.just(slices)), transactionManager, emf));
+        }
+        return new PlayerShards(shards, key, binaryCollation);
+    }
+
+    @Bean
+    public PlayerRepository playerRepository(PlayerShards playerShards) {
+        return playerShards.router();
+    }
+
+    // Writes touch a single shard, and the lazy data sources keep the other shards' transactions off the wire.
+    @Bean
+    public PlatformTransactionManager transactionManager(PlayerShards playerShards) {
+        return new ChainedTransactionManager(playerShards.transactionManagers()
+                .toArray(new PlatformTransactionManager[0]));
+    }
+
+    static DataSource dataSource(String url, String username, String password, int shard, int shards) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, username, password);
+        if (url.startsWith("jdbc:mysql:")) {
+            Properties properties = new Properties();
+            properties.setProperty("sessionVariables", "auto_increment_increment=" + shards
+                    + ",auto_increment_offset=" + (shard == 0 ? shards : shard));
+            dataSource.setConnectionProperties(properties);
+        }
+        return new LazyConnectionDataSourceProxy(dataSource);
+    }
+}
@@ -2,26 +2,59 @@ package com.game.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.game.admission.AdmissionControlInterceptor;
+import com.game.metrics.RequestMetricsInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.servlet.ViewResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
-@ComponentScan("com.game")
+@ComponentScan("com.game.controller")
 public class WebConfig implements WebMvcConfigurer {
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+    private final AdmissionControlInterceptor admissionControlInterceptor;
 
+    @Autowired
+    public WebConfig(RequestMetricsInterceptor requestMetricsInterceptor,
+                     AdmissionControlInterceptor admissionControlInterceptor) {
+        this.requestMetricsInterceptor = requestMetricsInterceptor;
+        this.admissionControlInterceptor = admissionControlInterceptor;
+    }
+
+    // Controllers are registered by type, so in fast-boot mode they need not exist before the first request either.
+    @Profile("fast-boot")
+    @Bean
+    public static LazyInitialization webLazyInitialization() {
+        return new LazyInitialization();
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -37,16 +70,39 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/").setViewName("index");
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor);
+        registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/rest/**");
+    }
+
+    // Pages link to content-hashed names (scripts-<md5>.js), which are cached for a year; the plain names are
+    // revalidated on every use. Pre-compressed .br/.gz siblings produced by the build are preferred when accepted.
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        registry.addResourceHandler("/resources/**")
+                .addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new ImmutableResourceResolver(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()))
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
 
+    // JSON stays first so that clients without an Accept header keep getting it; Smile and CBOR are picked by
+    // Accept/Content-Type (application/x-jackson-smile, application/cbor).
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
+        converters.add(new MappingJackson2HttpMessageConverter(objectMapper(new JsonFactory())));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(objectMapper(new SmileFactory())));
+        converters.add(new MappingJackson2CborHttpMessageConverter(objectMapper(new CBORFactory())));
+    }
+
+    public static ObjectMapper objectMapper(JsonFactory factory) {
+        ObjectMapper objectMapper = new Jackson2ObjectMapperBuilder().factory(factory).build();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return objectMapper;
     }
 }
\ No newline at end of file
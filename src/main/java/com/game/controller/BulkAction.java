@@ -0,0 +1,8 @@
+package com.game.controller;
+
+public enum BulkAction {
+    BAN,
+    UNBAN,
+    DELETE,
+    GRANT_EXPERIENCE // by the delta parameter
+}
@@ -3,18 +3,34 @@ package com.game.controller;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.game.index.CountEstimate;
+import com.game.index.PlayerRank;
+import com.game.index.PlayerStatsCube;
+import com.game.index.StatsCell;
+import com.game.repository.CircuitOpenException;
+import com.game.service.PlayerLookup;
 import com.game.service.PlayerService;
+import com.game.service.QueryResult;
+import com.game.service.QueryTimeoutException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/rest")
 public class Controller {
+    // Half-width of the 95% confidence interval of an estimated count.
+    static final String COUNT_ERROR_BOUND = "X-Count-Error-Bound";
+
     private final PlayerService playerService;
 
     @Autowired
@@ -38,12 +54,42 @@ public class Controller {
             @RequestParam(name = "pageNumber", defaultValue = "0") Integer pageNumber,
             @RequestParam(name = "pageSize", defaultValue = "3") Integer pageSize,
             @RequestParam(name = "order", defaultValue = "ID") PlayerOrder order) {
-        return ResponseEntity.ok(playerService.getAllPlayers(name, title, race, profession, after, before, banned,
+        return respond(playerService.getAllPlayers(name, title, race, profession, after, before, banned,
                 minExperience, maxExperience, minLevel, maxLevel, pageNumber, pageSize, order));
     }
 
     @GetMapping("/players/count")
-    public Integer count(
+    public ResponseEntity<Integer> count(
+            @RequestParam(name = "name", defaultValue = "") String name,
+            @RequestParam(name = "title", defaultValue = "") String title,
+            @RequestParam(name = "race", defaultValue = "") Race race,
+            @RequestParam(name = "profession", defaultValue = "") Profession profession,
+            @RequestParam(name = "after", defaultValue = "") Long after,
+            @RequestParam(name = "before", defaultValue = "") Long before,
+            @RequestParam(name = "banned", defaultValue = "") Boolean banned,
+            @RequestParam(name = "minExperience", defaultValue = "") Integer minExperience,
+            @RequestParam(name = "maxExperience", defaultValue = "") Integer maxExperience,
+            @RequestParam(name = "minLevel", defaultValue = "") Integer minLevel,
+            @RequestParam(name = "maxLevel", defaultValue = "") Integer maxLevel,
+            @RequestParam(name = "approximate", defaultValue = "false") Boolean approximate) {
+        if (!approximate) {
+            return respond(playerService.count(name, title, race, profession, after, before, banned,
+                    minExperience, maxExperience, minLevel, maxLevel));
+        }
+        QueryResult<CountEstimate> result = playerService.countApproximately(name, title, race, profession, after,
+                before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        CountEstimate count = result.getValue();
+        ResponseEntity.BodyBuilder response = ok(result);
+        if (!count.isExact()) {
+            response.header(COUNT_ERROR_BOUND, Integer.toString(count.getErrorBound()));
+        }
+        return response.body(count.getValue());
+    }
+
+    @PostMapping("/players/bulk")
+    public ResponseEntity<Integer> applyToAll(
+            @RequestParam(name = "action") BulkAction action,
+            @RequestParam(name = "delta", defaultValue = "") Integer delta,
             @RequestParam(name = "name", defaultValue = "") String name,
             @RequestParam(name = "title", defaultValue = "") String title,
             @RequestParam(name = "race", defaultValue = "") Race race,
@@ -54,9 +100,72 @@ public class Controller {
             @RequestParam(name = "minExperience", defaultValue = "") Integer minExperience,
             @RequestParam(name = "maxExperience", defaultValue = "") Integer maxExperience,
             @RequestParam(name = "minLevel", defaultValue = "") Integer minLevel,
-            @RequestParam(name = "maxLevel", defaultValue = "") Integer maxLevel) {
-        return playerService.count(name, title, race, profession, after, before, banned,
-                minExperience, maxExperience, minLevel, maxLevel);
+            @RequestParam(name = "maxLevel", defaultValue = "") Integer maxLevel,
+            @RequestParam(name = "all", defaultValue = "false") Boolean all) {
+        if (action == BulkAction.GRANT_EXPERIENCE
+                && (delta == null || delta < -10_000_000 || delta > 10_000_000)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        // Changing every player takes an explicit all=true, so that a forgotten filter cannot do it.
+        boolean unfiltered = name.isEmpty() && title.isEmpty() && race == null && profession == null && after == null
+                && before == null && banned == null && minExperience == null && maxExperience == null
+                && minLevel == null && maxLevel == null;
+        if (unfiltered && !all) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(playerService.applyToAll(action, delta, name, title, race, profession, after, before,
+                banned, minExperience, maxExperience, minLevel, maxLevel));
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<Player>> getLeaderboard(
+            @RequestParam(name = "top", defaultValue = "100") Integer top,
+            @RequestParam(name = "race", defaultValue = "") Race race,
+            @RequestParam(name = "profession", defaultValue = "") Profession profession) {
+        if (top <= 0 || top > 1000) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(playerService.getLeaderboard(top, race, profession));
+    }
+
+    @GetMapping("/players/{id}/rank")
+    public ResponseEntity<PlayerRank> getRank(@PathVariable("id") String id) {
+        if (!id.chars().allMatch(Character::isDigit) || Long.parseLong(id) <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(playerService
+                .getRank(Long.parseLong(id))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No players with specified ID were found")));
+    }
+
+    @GetMapping("/players/{id}/matches")
+    public ResponseEntity<List<Player>> getMatches(
+            @PathVariable("id") String id,
+            @RequestParam(name = "k", defaultValue = "10") Integer k,
+            @RequestParam(name = "race", defaultValue = "") Race race,
+            @RequestParam(name = "profession", defaultValue = "") Profession profession) {
+        if (!id.chars().allMatch(Character::isDigit) || Long.parseLong(id) <= 0 || k <= 0 || k > 1000) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(playerService
+                .getMatches(Long.parseLong(id), k, race, profession)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No players with specified ID were found")));
+    }
+
+    @GetMapping(value = "/players/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToChanges() {
+        return playerService.subscribeToChanges();
+    }
+
+    @GetMapping("/players/stats")
+    public ResponseEntity<List<StatsCell>> getStats(
+            @RequestParam(name = "levelBucket", defaultValue = "10") Integer levelBucket) {
+        if (levelBucket <= 0 || levelBucket > PlayerStatsCube.MAX_LEVEL + 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(playerService.getStats(levelBucket));
     }
 
     @PostMapping("/players")
@@ -67,6 +176,14 @@ public class Controller {
                         "Player can't be saved")));
     }
 
+    @PostMapping("/players/lookup")
+    public ResponseEntity<List<PlayerLookup>> lookup(@RequestBody List<Long> ids) {
+        if (ids.size() > 1000 || ids.stream().anyMatch(id -> id == null || id <= 0)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(playerService.findAllById(ids));
+    }
+
     @RequestMapping(value = "/players/{id}", method = RequestMethod.GET)
     public ResponseEntity<Player> findById(@PathVariable("id") String id) {
         if (!id.chars().allMatch(Character::isDigit) || Long.parseLong(id) <= 0) {
@@ -104,6 +221,38 @@ public class Controller {
                 new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Void> queryTimedOut() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    // The player kept changing under every retry of the update.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> conflict() {
+        return new ResponseEntity<>(HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<Void> circuitOpen(CircuitOpenException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString((e.getRetryAfterMs() + 999) / 1000))
+                .build();
+    }
+
+    private static <T> ResponseEntity<T> respond(QueryResult<T> result) {
+        return ok(result).body(result.getValue());
+    }
+
+    // Last-known-good results carry the RFC 7234 staleness warning and their age.
+    private static ResponseEntity.BodyBuilder ok(QueryResult<?> result) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.isStale()) {
+            response.header(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+                    .header(HttpHeaders.AGE, Long.toString(TimeUnit.MILLISECONDS.toSeconds(result.getAgeMs())));
+        }
+        return response;
+    }
+
     private Boolean checkBeforeUpdate(String id, Player player) {
         return !id.chars().allMatch(Character::isDigit)
                 || Long.parseLong(id) <= 0
@@ -0,0 +1,42 @@
+package com.game.controller;
+
+import com.game.metrics.MetricsRegistry;
+import com.game.metrics.StartupTimeline;
+import com.game.warmup.WarmUp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class MetricsController {
+    private final MetricsRegistry metricsRegistry;
+    private final StartupTimeline startupTimeline;
+    private final WarmUp warmUp;
+
+    @Autowired
+    public MetricsController(MetricsRegistry metricsRegistry, StartupTimeline startupTimeline, WarmUp warmUp) {
+        this.metricsRegistry = metricsRegistry;
+        this.startupTimeline = startupTimeline;
+        this.warmUp = warmUp;
+    }
+
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String scrape() {
+        return metricsRegistry.scrape();
+    }
+
+    @GetMapping(value = "/startup", produces = "text/plain; charset=utf-8")
+    public String startup(@RequestParam(name = "beans", defaultValue = "30") Integer beans) {
+        return startupTimeline.report(beans);
+    }
+
+    // Readiness probe for the load balancer: 503 until the warm-up is over.
+    @GetMapping(value = "/ready", produces = "text/plain; charset=utf-8")
+    public ResponseEntity<String> ready() {
+        return ResponseEntity.status(warmUp.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(warmUp.status() + "\n");
+    }
+}
@@ -1,10 +1,14 @@
 package com.game.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Where;
+
 import javax.persistence.*;
 import java.sql.Date;
 
 @Entity
 @Table(name = "player")
+@Where(clause = "deleted = false")
 public class Player {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,6 +25,31 @@ public class Player {
     private Date birthday;
     @Column(columnDefinition = "boolean default false")
     private Boolean banned;
+    // Optimistic lock only, not part of the API.
+    @Version
+    @JsonIgnore
+    private Long version;
+    // Soft-deleted: queries skip the row, loads by id have to check.
+    @JsonIgnore
+    private boolean deleted;
+
+    public Player() {
+    }
+
+    public Player(Player other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.title = other.title;
+        this.race = other.race;
+        this.profession = other.profession;
+        this.experience = other.experience;
+        this.level = other.level;
+        this.untilNextLevel = other.untilNextLevel;
+        this.birthday = other.birthday;
+        this.banned = other.banned;
+        this.version = other.version;
+        this.deleted = other.deleted;
+    }
 
     public Long getId() {
         return id;
@@ -101,4 +130,20 @@ public class Player {
     public void setBanned(Boolean banned) {
         this.banned = banned;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
 }
@@ -0,0 +1,45 @@
+package com.game.events;
+
+import com.game.entity.Player;
+
+public class PlayerChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Long id;
+    private final Player player;
+
+    public PlayerChange(Type type, Long id, Player player) {
+        this.type = type;
+        this.id = id;
+        this.player = player;
+    }
+
+    /**
+     * Folds a later change of the same player into this one, or returns {@code null} when the two cancel out.
+     */
+    public PlayerChange then(PlayerChange later) {
+        if (type == Type.CREATED) {
+            return later.type == Type.DELETED ? null : new PlayerChange(Type.CREATED, id, later.player);
+        }
+        if (type == Type.DELETED && later.type == Type.CREATED) {
+            return new PlayerChange(Type.UPDATED, id, later.player);
+        }
+        return later;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+}
@@ -0,0 +1,198 @@
+package com.game.events;
+
+import com.game.entity.Player;
+import com.game.service.PlayerChangeListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes player changes to Server-Sent Events subscribers. Changes are coalesced per player id and flushed
+ * in batches; a subscriber whose buffer overflows is told to resync instead of receiving every change.
+ */
+@Component
+public class PlayerEventStream implements PlayerChangeListener, DisposableBean {
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(daemon("sse-flush"));
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    @Autowired
+    public PlayerEventStream(@Value("${game.events.buffer-size}") int bufferSize,
+                             @Value("${game.events.flush-interval-ms}") long flushIntervalMillis,
+                             @Value("${game.events.heartbeat-interval-ms}") long heartbeatIntervalMillis,
+                             @Value("${game.events.timeout-ms}") long timeoutMillis,
+                             @Value("${game.events.sender-threads}") int senderThreads) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemon("sse-send"));
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMillis, heartbeatIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void reload(List<Player> players) {
+        subscribers.forEach(Subscriber::resync);
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        publish(new PlayerChange(previous == null ? PlayerChange.Type.CREATED : PlayerChange.Type.UPDATED,
+                current.getId(), current));
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        publish(new PlayerChange(PlayerChange.Type.DELETED, player.getId(), null));
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void publish(PlayerChange change) {
+        subscribers.forEach(subscriber -> subscriber.offer(change));
+    }
+
+    public void flush() {
+        subscribers.forEach(subscriber -> {
+            if (subscriber.hasPending() && subscriber.startSending()) {
+                senders.execute(subscriber::send);
+            }
+        });
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> {
+            if (subscriber.startSending()) {
+                senders.execute(subscriber::ping);
+            }
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<Long, PlayerChange> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean sending;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(PlayerChange change) {
+            if (overflowed) {
+                return;
+            }
+            PlayerChange earlier = pending.remove(change.getId());
+            PlayerChange merged = earlier == null ? change : earlier.then(change);
+            if (merged != null) {
+                pending.put(change.getId(), merged);
+            }
+            if (pending.size() > bufferSize) {
+                resync();
+            }
+        }
+
+        private synchronized void resync() {
+            pending.clear();
+            overflowed = true;
+        }
+
+        private synchronized boolean hasPending() {
+            return overflowed || !pending.isEmpty();
+        }
+
+        private synchronized boolean startSending() {
+            if (sending) {
+                return false;
+            }
+            sending = true;
+            return true;
+        }
+
+        private void send() {
+            boolean resync;
+            List<PlayerChange> batch;
+            synchronized (this) {
+                resync = overflowed;
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                overflowed = false;
+            }
+            try {
+                if (resync) {
+                    emitter.send(SseEmitter.event().name("resync").data(""));
+                } else if (!batch.isEmpty()) {
+                    emitter.send(SseEmitter.event().name("players").data(batch, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop();
+            } finally {
+                finishSending();
+            }
+        }
+
+        private void ping() {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                drop();
+            } finally {
+                finishSending();
+            }
+        }
+
+        private synchronized void finishSending() {
+            sending = false;
+        }
+
+        private void drop() {
+            subscribers.remove(this);
+            emitter.completeWithError(new IOException("Subscriber disconnected"));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column statistics of the player table for estimating how many players a filter matches: equi-depth histograms
+ * for experience, level and birthday (in days), and value frequencies for race, profession and banned. Histogram
+ * bounds are cut on reload; saves and deletes keep the counts current in between.
+ */
+@Component
+public class ColumnStatistics implements PlayerChangeListener {
+    private final int buckets;
+    private final Histogram experience = new Histogram();
+    private final Histogram level = new Histogram();
+    private final Histogram birthday = new Histogram();
+    private final long[] races = new long[Race.values().length];
+    private final long[] professions = new long[Profession.values().length];
+    private final long[] banned = new long[2];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long rows;
+
+    public ColumnStatistics(@Value("${game.planner.histogram-buckets}") int buckets) {
+        this.buckets = buckets;
+    }
+
+    public long rows() {
+        lock.readLock().lock();
+        try {
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double fraction(Race race) {
+        lock.readLock().lock();
+        try {
+            return share(races[race.ordinal()]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double fraction(Profession profession) {
+        lock.readLock().lock();
+        try {
+            return share(professions[profession.ordinal()]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double fractionBanned(boolean value) {
+        lock.readLock().lock();
+        try {
+            return share(banned[value ? 1 : 0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Share of players with experience in {@code [min, max]}; a {@code null} bound is open.
+     */
+    public double fractionExperience(Integer min, Integer max) {
+        return fraction(experience, min == null ? Long.MIN_VALUE : min, max == null ? Long.MAX_VALUE : max);
+    }
+
+    public double fractionLevel(Integer min, Integer max) {
+        return fraction(level, min == null ? Long.MIN_VALUE : min, max == null ? Long.MAX_VALUE : max);
+    }
+
+    public double fractionBirthday(LocalDate first, LocalDate last) {
+        return fraction(birthday, first == null ? Long.MIN_VALUE : first.toEpochDay(),
+                last == null ? Long.MAX_VALUE : last.toEpochDay());
+    }
+
+    @Override
+    public void reload(List<Player> players) {
+        long[] experiences = new long[players.size()];
+        long[] levels = new long[players.size()];
+        long[] birthdays = new long[players.size()];
+        int size = 0;
+        for (Player player : players) {
+            if (complete(player)) {
+                experiences[size] = player.getExperience();
+                levels[size] = player.getLevel();
+                birthdays[size] = player.getBirthday().toLocalDate().toEpochDay();
+                size++;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            experience.build(Arrays.copyOf(experiences, size), buckets);
+            level.build(Arrays.copyOf(levels, size), buckets);
+            birthday.build(Arrays.copyOf(birthdays, size), buckets);
+            Arrays.fill(races, 0);
+            Arrays.fill(professions, 0);
+            Arrays.fill(banned, 0);
+            rows = 0;
+            players.stream().filter(ColumnStatistics::complete).forEach(player -> count(player, 1));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                add(previous, -1);
+            }
+            add(current, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        lock.writeLock().lock();
+        try {
+            add(player, -1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private double fraction(Histogram histogram, long from, long to) {
+        lock.readLock().lock();
+        try {
+            return histogram.fraction(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double share(long count) {
+        return rows == 0 ? 0 : (double) count / rows;
+    }
+
+    private void add(Player player, int delta) {
+        if (!complete(player)) {
+            return;
+        }
+        experience.add(player.getExperience(), delta);
+        level.add(player.getLevel(), delta);
+        birthday.add(player.getBirthday().toLocalDate().toEpochDay(), delta);
+        count(player, delta);
+    }
+
+    private void count(Player player, int delta) {
+        races[player.getRace().ordinal()] += delta;
+        professions[player.getProfession().ordinal()] += delta;
+        banned[Boolean.TRUE.equals(player.getBanned()) ? 1 : 0] += delta;
+        rows += delta;
+    }
+
+    private static boolean complete(Player player) {
+        return player.getRace() != null && player.getProfession() != null && player.getExperience() != null
+                && player.getLevel() != null && player.getBirthday() != null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.index;
+
+/**
+ * A number of players, either exact or estimated from a sample with the half-width of its 95% confidence interval.
+ */
+public final class CountEstimate {
+    private final int value;
+    private final int errorBound;
+    private final boolean exact;
+
+    private CountEstimate(int value, int errorBound, boolean exact) {
+        this.value = value;
+        this.errorBound = errorBound;
+        this.exact = exact;
+    }
+
+    public static CountEstimate exact(int value) {
+        return new CountEstimate(value, 0, true);
+    }
+
+    public static CountEstimate estimated(int value, int errorBound) {
+        return new CountEstimate(value, errorBound, false);
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public int getErrorBound() {
+        return errorBound;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+}
@@ -0,0 +1,84 @@
+package com.game.index;
+
+import java.util.Arrays;
+
+/**
+ * Equi-depth histogram over a whole-number column. Bucket bounds are cut from the values at build time so that each
+ * bucket holds about as many rows; later changes only move counts between the fixed buckets (widening the outer
+ * ones for values beyond them) until the next build. Values within a bucket are assumed to be spread evenly.
+ */
+final class Histogram {
+    private long[] lower;
+    private long upper;
+    private long[] counts;
+    private long total;
+
+    Histogram() {
+        build(new long[0], 1);
+    }
+
+    /**
+     * @param values the column values; sorted in place
+     */
+    void build(long[] values, int buckets) {
+        Arrays.sort(values);
+        total = values.length;
+        if (values.length == 0) {
+            lower = new long[0];
+            counts = new long[0];
+            return;
+        }
+        long[] bounds = new long[Math.max(1, Math.min(buckets, values.length))];
+        int size = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            long bound = values[(int) ((long) i * values.length / bounds.length)];
+            if (size == 0 || bound > bounds[size - 1]) {
+                bounds[size++] = bound;
+            }
+        }
+        lower = Arrays.copyOf(bounds, size);
+        upper = values[values.length - 1];
+        counts = new long[size];
+        for (long value : values) {
+            counts[bucket(value)]++;
+        }
+    }
+
+    void add(long value, int delta) {
+        if (lower.length == 0) {
+            lower = new long[]{value};
+            upper = value;
+            counts = new long[1];
+        } else if (value < lower[0]) {
+            lower[0] = value;
+        } else if (value > upper) {
+            upper = value;
+        }
+        counts[bucket(value)] += delta;
+        total += delta;
+    }
+
+    /**
+     * Share of the rows whose value lies in {@code [from, to]}.
+     */
+    double fraction(long from, long to) {
+        if (total <= 0 || from > to) {
+            return 0;
+        }
+        double rows = 0;
+        for (int i = 0; i < lower.length; i++) {
+            long low = lower[i];
+            long high = i + 1 < lower.length ? lower[i + 1] - 1 : upper;
+            long overlap = Math.min(high, to) - Math.max(low, from) + 1;
+            if (overlap > 0) {
+                rows += counts[i] * (double) overlap / (high - low + 1);
+            }
+        }
+        return Math.min(1, Math.max(0, rows / total));
+    }
+
+    private int bucket(long value) {
+        int position = Arrays.binarySearch(lower, value);
+        return Math.max(0, position >= 0 ? position : -position - 2);
+    }
+}
@@ -0,0 +1,148 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Players ranked by experience (highest first, ties by id) overall, per race, per profession
+ * and per race and profession.
+ */
+@Component
+public class Leaderboard implements PlayerChangeListener {
+    private static final long MAX_EXPERIENCE = 10_000_000;
+    private static final int ID_BITS = 39;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int PROFESSIONS = Profession.values().length + 1;
+
+    private final OrderStatisticTree[] boards =
+            new OrderStatisticTree[(Race.values().length + 1) * PROFESSIONS];
+    private final Map<Long, Player> players = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public Leaderboard() {
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new OrderStatisticTree();
+        }
+    }
+
+    public List<Player> top(int count, Race race, Profession profession) {
+        List<Player> top = new ArrayList<>(Math.min(count, 1024));
+        lock.readLock().lock();
+        try {
+            board(race, profession).ascendingFrom(0, key -> {
+                top.add(players.get(key & ID_MASK));
+                return top.size() < count;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top;
+    }
+
+    public Optional<PlayerRank> rank(long id) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(id);
+            if (player == null) {
+                return Optional.empty();
+            }
+            long key = key(player);
+            OrderStatisticTree all = board(null, null);
+            OrderStatisticTree race = board(player.getRace(), null);
+            OrderStatisticTree profession = board(null, player.getProfession());
+            return Optional.of(new PlayerRank(id, player.getExperience(),
+                    all.rank(key) + 1, all.size(),
+                    race.rank(key) + 1, race.size(),
+                    profession.rank(key) + 1, profession.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload(List<Player> reloaded) {
+        lock.writeLock().lock();
+        try {
+            players.clear();
+            for (OrderStatisticTree board : boards) {
+                board.clear();
+            }
+            reloaded.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        lock.writeLock().lock();
+        try {
+            Player replaced = players.get(current.getId());
+            if (replaced != null) {
+                remove(replaced);
+            }
+            add(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        lock.writeLock().lock();
+        try {
+            Player removed = players.get(player.getId());
+            if (removed != null) {
+                remove(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Player player) {
+        long key = key(player);
+        players.put(player.getId(), player);
+        for (OrderStatisticTree board : boardsOf(player)) {
+            board.insert(key);
+        }
+    }
+
+    private void remove(Player player) {
+        long key = key(player);
+        players.remove(player.getId());
+        for (OrderStatisticTree board : boardsOf(player)) {
+            board.remove(key);
+        }
+    }
+
+    private OrderStatisticTree[] boardsOf(Player player) {
+        return new OrderStatisticTree[]{
+                board(null, null),
+                board(player.getRace(), null),
+                board(null, player.getProfession()),
+                board(player.getRace(), player.getProfession())};
+    }
+
+    private OrderStatisticTree board(Race race, Profession profession) {
+        int raceIndex = race == null ? 0 : race.ordinal() + 1;
+        int professionIndex = profession == null ? 0 : profession.ordinal() + 1;
+        return boards[raceIndex * PROFESSIONS + professionIndex];
+    }
+
+    private static long key(Player player) {
+        long experience = player.getExperience() == null ? 0 : player.getExperience();
+        return (MAX_EXPERIENCE - experience) << ID_BITS | player.getId();
+    }
+}
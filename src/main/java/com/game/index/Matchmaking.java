@@ -0,0 +1,158 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Unbanned players ordered by experience (ties by id) overall, per race, per profession and per race and
+ * profession, for finding the players closest to a given one in O(log n + k).
+ */
+@Component
+public class Matchmaking implements PlayerChangeListener {
+    private static final int ID_BITS = 39;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int PROFESSIONS = Profession.values().length + 1;
+
+    private final OrderStatisticTree[] pools =
+            new OrderStatisticTree[(Race.values().length + 1) * PROFESSIONS];
+    private final Map<Long, Player> players = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public Matchmaking() {
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new OrderStatisticTree();
+        }
+    }
+
+    /**
+     * The {@code count} unbanned players of the race and profession (either may be {@code null} for any) whose
+     * experience is closest to that of player {@code id}, closest first; ties go to the lower experience. Empty
+     * when there is no such player.
+     */
+    public Optional<List<Player>> matches(long id, int count, Race race, Profession profession) {
+        lock.readLock().lock();
+        try {
+            Player player = players.get(id);
+            if (player == null) {
+                return Optional.empty();
+            }
+            long key = key(player);
+            OrderStatisticTree pool = pool(race, profession);
+            // Only the count closest on either side can be among the count closest overall.
+            long[] below = new long[count];
+            long[] above = new long[count];
+            int[] sizes = new int[2];
+            pool.descendingFrom(key - 1, lower -> {
+                below[sizes[0]++] = lower;
+                return sizes[0] < count;
+            });
+            pool.ascendingFrom(key + 1, higher -> {
+                above[sizes[1]++] = higher;
+                return sizes[1] < count;
+            });
+            long experience = experience(key);
+            List<Player> matches = new ArrayList<>(count);
+            int lower = 0;
+            int higher = 0;
+            while (matches.size() < count && (lower < sizes[0] || higher < sizes[1])) {
+                boolean takeLower = higher == sizes[1] || lower < sizes[0]
+                        && experience - experience(below[lower]) <= experience(above[higher]) - experience;
+                long match = takeLower ? below[lower++] : above[higher++];
+                matches.add(players.get(match & ID_MASK));
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload(List<Player> reloaded) {
+        lock.writeLock().lock();
+        try {
+            players.clear();
+            for (OrderStatisticTree pool : pools) {
+                pool.clear();
+            }
+            reloaded.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        lock.writeLock().lock();
+        try {
+            Player replaced = players.get(current.getId());
+            if (replaced != null) {
+                remove(replaced);
+            }
+            add(current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        lock.writeLock().lock();
+        try {
+            Player removed = players.get(player.getId());
+            if (removed != null) {
+                remove(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Banned players are kept so that they can still look for matches, but never become one.
+    private void add(Player player) {
+        players.put(player.getId(), player);
+        long key = key(player);
+        forEachPool(player, pool -> pool.insert(key));
+    }
+
+    private void remove(Player player) {
+        players.remove(player.getId());
+        long key = key(player);
+        forEachPool(player, pool -> pool.remove(key));
+    }
+
+    private void forEachPool(Player player, Consumer<OrderStatisticTree> action) {
+        if (Boolean.TRUE.equals(player.getBanned())) {
+            return;
+        }
+        Arrays.asList(pool(null, null), pool(player.getRace(), null), pool(null, player.getProfession()),
+                pool(player.getRace(), player.getProfession())).forEach(action);
+    }
+
+    private OrderStatisticTree pool(Race race, Profession profession) {
+        int raceIndex = race == null ? 0 : race.ordinal() + 1;
+        int professionIndex = profession == null ? 0 : profession.ordinal() + 1;
+        return pools[raceIndex * PROFESSIONS + professionIndex];
+    }
+
+    private static long key(Player player) {
+        long experience = player.getExperience() == null ? 0 : player.getExperience();
+        return experience << ID_BITS | player.getId();
+    }
+
+    private static long experience(long key) {
+        return key >>> ID_BITS;
+    }
+}
@@ -0,0 +1,239 @@
+package com.game.index;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Set of long keys with O(log n) rank and select, stored as a treap in parallel primitive arrays.
+ * Not thread-safe.
+ */
+public final class OrderStatisticTree {
+    private static final int NIL = 0;
+
+    private long[] keys = new long[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] size = new int[16];
+    private int[] priority = new int[16];
+    private int root = NIL;
+    private int next = 1;
+    private int free = NIL;
+    private int seed = 0x9E3779B9;
+
+    private int splitLeft;
+    private int splitRight;
+
+    public int size() {
+        return size[root];
+    }
+
+    public boolean contains(long key) {
+        int node = root;
+        while (node != NIL) {
+            if (key == keys[node]) {
+                return true;
+            }
+            node = key < keys[node] ? left[node] : right[node];
+        }
+        return false;
+    }
+
+    public boolean insert(long key) {
+        if (contains(key)) {
+            return false;
+        }
+        int node = allocate(key);
+        split(root, key);
+        int lower = splitLeft;
+        int upper = splitRight;
+        root = merge(merge(lower, node), upper);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        split(root, key);
+        int lower = splitLeft;
+        split(splitRight, key + 1);
+        int found = splitLeft;
+        int upper = splitRight;
+        if (found != NIL) {
+            release(found);
+        }
+        root = merge(lower, upper);
+        return found != NIL;
+    }
+
+    /**
+     * Number of keys strictly less than {@code key}.
+     */
+    public int rank(long key) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] < key) {
+                rank += size[left[node]] + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Key with the given zero-based rank.
+     */
+    public long select(int rank) {
+        if (rank < 0 || rank >= size()) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of " + size());
+        }
+        int node = root;
+        while (true) {
+            int leftSize = size[left[node]];
+            if (rank < leftSize) {
+                node = left[node];
+            } else if (rank == leftSize) {
+                return keys[node];
+            } else {
+                rank -= leftSize + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * Visits keys greater than or equal to {@code from} in ascending order until the action returns false.
+     */
+    public void ascendingFrom(long from, LongPredicate action) {
+        int[] stack = new int[64];
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] >= from) {
+                stack = push(stack, depth++, node);
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        while (depth > 0) {
+            node = stack[--depth];
+            if (!action.test(keys[node])) {
+                return;
+            }
+            for (node = right[node]; node != NIL; node = left[node]) {
+                stack = push(stack, depth++, node);
+            }
+        }
+    }
+
+    /**
+     * Visits keys less than or equal to {@code from} in descending order until the action returns false.
+     */
+    public void descendingFrom(long from, LongPredicate action) {
+        int[] stack = new int[64];
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            if (keys[node] <= from) {
+                stack = push(stack, depth++, node);
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        while (depth > 0) {
+            node = stack[--depth];
+            if (!action.test(keys[node])) {
+                return;
+            }
+            for (node = left[node]; node != NIL; node = right[node]) {
+                stack = push(stack, depth++, node);
+            }
+        }
+    }
+
+    public void clear() {
+        root = NIL;
+        next = 1;
+        free = NIL;
+    }
+
+    private static int[] push(int[] stack, int depth, int node) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth] = node;
+        return stack;
+    }
+
+    private void split(int node, long key) {
+        if (node == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+        } else if (keys[node] < key) {
+            split(right[node], key);
+            right[node] = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            split(left[node], key);
+            left[node] = splitRight;
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    private int merge(int lower, int upper) {
+        if (lower == NIL) {
+            return upper;
+        }
+        if (upper == NIL) {
+            return lower;
+        }
+        if (priority[lower] > priority[upper]) {
+            right[lower] = merge(right[lower], upper);
+            update(lower);
+            return lower;
+        }
+        left[upper] = merge(lower, left[upper]);
+        update(upper);
+        return upper;
+    }
+
+    private void update(int node) {
+        size[node] = size[left[node]] + size[right[node]] + 1;
+    }
+
+    private int allocate(long key) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = left[node];
+        } else {
+            if (next == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                size = Arrays.copyOf(size, capacity);
+                priority = Arrays.copyOf(priority, capacity);
+            }
+            node = next++;
+        }
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        keys[node] = key;
+        left[node] = NIL;
+        right[node] = NIL;
+        size[node] = 1;
+        priority[node] = seed;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = free;
+        free = node;
+    }
+}
@@ -0,0 +1,211 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.metrics.MetricsRegistry;
+import com.game.service.PlayerChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded cache of single-player lookups, including ids that do not exist (kept for a short TTL). Entries live in
+ * parallel arrays keyed by primitive ids, four ways per set; a full set evicts round robin. A lookup that raced
+ * with a change to its set is returned but not cached, so a write never leaves a stale entry behind.
+ */
+@Component
+public class PlayerNearCache implements PlayerChangeListener {
+    private static final int WAYS = 4;
+    private static final int STRIPES = 64;
+    private static final long EMPTY = 0;
+
+    private final long[] ids;
+    private final Player[] players;
+    private final long[] expiresAt;
+    private final byte[] victims;
+    private final long[] generations;
+    private final Object[] locks = new Object[STRIPES];
+    private final int setMask;
+    private final long negativeTtlNanos;
+    private final MetricsRegistry.Counter hits;
+    private final MetricsRegistry.Counter negativeHits;
+    private final MetricsRegistry.Counter misses;
+
+    public PlayerNearCache(@Value("${game.near-cache.capacity}") int capacity,
+                           @Value("${game.near-cache.negative-ttl-ms}") long negativeTtlMs,
+                           MetricsRegistry metricsRegistry) {
+        int sets = Integer.highestOneBit(Math.max(1, capacity / WAYS));
+        this.ids = new long[sets * WAYS];
+        this.players = new Player[sets * WAYS];
+        this.expiresAt = new long[sets * WAYS];
+        this.victims = new byte[sets];
+        this.generations = new long[sets];
+        this.setMask = sets - 1;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+        String help = "Player lookups by id answered from the near-cache (hit, negative) or the database (miss)";
+        this.hits = metricsRegistry.counter("player_near_cache_requests_total", help, "result", "hit");
+        this.negativeHits = metricsRegistry.counter("player_near_cache_requests_total", help, "result", "negative");
+        this.misses = metricsRegistry.counter("player_near_cache_requests_total", help, "result", "miss");
+    }
+
+    /**
+     * Returns a private copy of the cached player, or asks {@code loader} and remembers what it found.
+     */
+    public Optional<Player> get(long id, LongFunction<Optional<Player>> loader) {
+        int set = set(id);
+        long generation;
+        synchronized (lock(set)) {
+            Optional<Player> cached = cached(set, id);
+            if (cached != null) {
+                return cached;
+            }
+            generation = generations[set];
+        }
+        misses.increment();
+        Optional<Player> loaded = loader.apply(id);
+        remember(set, generation, id, loaded);
+        return loaded;
+    }
+
+    /**
+     * Looks up every id at once: cached ids are answered from here, and all the others are handed to a single
+     * {@code loader} call and remembered, found or not.
+     */
+    public Map<Long, Optional<Player>> getAll(Collection<Long> ids, Function<List<Long>, List<Player>> loader) {
+        Map<Long, Optional<Player>> found = new HashMap<>();
+        Map<Long, Long> missing = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (found.containsKey(id) || missing.containsKey(id)) {
+                continue;
+            }
+            int set = set(id);
+            synchronized (lock(set)) {
+                Optional<Player> cached = cached(set, id);
+                if (cached != null) {
+                    found.put(id, cached);
+                } else {
+                    missing.put(id, generations[set]);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        misses.add(missing.size());
+        Map<Long, Player> loaded = new HashMap<>();
+        loader.apply(new ArrayList<>(missing.keySet())).forEach(player -> loaded.put(player.getId(), player));
+        missing.forEach((id, generation) -> {
+            Optional<Player> player = Optional.ofNullable(loaded.get(id));
+            remember(set(id), generation, id, player);
+            found.put(id, player);
+        });
+        return found;
+    }
+
+    public void invalidate(long id) {
+        int set = set(id);
+        synchronized (lock(set)) {
+            generations[set]++;
+            int way = find(set, id);
+            if (way >= 0) {
+                ids[way] = EMPTY;
+                players[way] = null;
+            }
+        }
+    }
+
+    @Override
+    public void reload(List<Player> all) {
+        for (int set = 0; set <= setMask; set++) {
+            synchronized (lock(set)) {
+                generations[set]++;
+                Arrays.fill(ids, set * WAYS, (set + 1) * WAYS, EMPTY);
+                Arrays.fill(players, set * WAYS, (set + 1) * WAYS, null);
+            }
+        }
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        invalidate(current.getId());
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        invalidate(player.getId());
+    }
+
+    // A copy of the cached player, empty for an id cached as missing, or null when the id has to be loaded. The
+    // caller holds the lock of the set.
+    private Optional<Player> cached(int set, long id) {
+        int way = find(set, id);
+        if (way < 0) {
+            return null;
+        }
+        Player player = players[way];
+        if (player != null) {
+            hits.increment();
+            return Optional.of(new Player(player));
+        }
+        if (expiresAt[way] - System.nanoTime() > 0) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+        ids[way] = EMPTY;
+        return null;
+    }
+
+    private void remember(int set, long generation, long id, Optional<Player> loaded) {
+        synchronized (lock(set)) {
+            if (generations[set] == generation && find(set, id) < 0) {
+                int way = victim(set);
+                ids[way] = id;
+                players[way] = loaded.map(Player::new).orElse(null);
+                expiresAt[way] = System.nanoTime() + negativeTtlNanos;
+            }
+        }
+    }
+
+    private int set(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & setMask;
+    }
+
+    private Object lock(int set) {
+        return locks[set & (STRIPES - 1)];
+    }
+
+    private int find(int set, long id) {
+        for (int way = set * WAYS; way < (set + 1) * WAYS; way++) {
+            if (ids[way] == id) {
+                return way;
+            }
+        }
+        return -1;
+    }
+
+    private int victim(int set) {
+        long now = System.nanoTime();
+        for (int way = set * WAYS; way < (set + 1) * WAYS; way++) {
+            if (ids[way] == EMPTY || players[way] == null && expiresAt[way] - now <= 0) {
+                return way;
+            }
+        }
+        int victim = victims[set];
+        victims[set] = (byte) ((victim + 1) % WAYS);
+        return set * WAYS + victim;
+    }
+}
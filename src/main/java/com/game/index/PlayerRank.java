@@ -0,0 +1,56 @@
+package com.game.index;
+
+public class PlayerRank {
+    private final Long id;
+    private final Integer experience;
+    private final Integer rank;
+    private final Integer total;
+    private final Integer raceRank;
+    private final Integer raceTotal;
+    private final Integer professionRank;
+    private final Integer professionTotal;
+
+    public PlayerRank(Long id, Integer experience, Integer rank, Integer total, Integer raceRank, Integer raceTotal,
+                      Integer professionRank, Integer professionTotal) {
+        this.id = id;
+        this.experience = experience;
+        this.rank = rank;
+        this.total = total;
+        this.raceRank = raceRank;
+        this.raceTotal = raceTotal;
+        this.professionRank = professionRank;
+        this.professionTotal = professionTotal;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getExperience() {
+        return experience;
+    }
+
+    public Integer getRank() {
+        return rank;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public Integer getRaceRank() {
+        return raceRank;
+    }
+
+    public Integer getRaceTotal() {
+        return raceTotal;
+    }
+
+    public Integer getProfessionRank() {
+        return professionRank;
+    }
+
+    public Integer getProfessionTotal() {
+        return professionTotal;
+    }
+}
@@ -0,0 +1,139 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.service.PlayerChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Uniform sample of at most {@code size} players for estimating counts in time independent of the table size.
+ * The sample is every player whose id hashes at or below a threshold, lowered as new players push it over
+ * {@code size}; since membership depends only on the id, saves and deletes keep it uniform without rescanning.
+ * Deletes can only shrink it, which widens the error bound until the next reload.
+ */
+@Component
+public class PlayerSample implements PlayerChangeListener {
+    // About 95% of a normal distribution lies within this many standard deviations of its mean.
+    private static final double Z = 1.96;
+    private static final long ALL = -1L;
+
+    private final int size;
+    private final int minHits;
+    private final TreeMap<Long, Player> sample = new TreeMap<>(Long::compareUnsigned);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long threshold = ALL;
+    private long rows;
+
+    public PlayerSample(@Value("${game.count.sample-size}") int size,
+                        @Value("${game.count.min-sample-hits}") int minHits) {
+        this.size = Math.max(1, size);
+        this.minHits = minHits;
+    }
+
+    /**
+     * The number of players meeting all {@code conditions}: exact while the sample holds every player, estimated
+     * from the sample when at least {@code minHits} sampled players match, and empty otherwise.
+     */
+    public Optional<CountEstimate> estimate(List<Predicate<Player>> conditions) {
+        lock.readLock().lock();
+        try {
+            int hits = 0;
+            for (Player player : sample.values()) {
+                if (matches(player, conditions)) {
+                    hits++;
+                }
+            }
+            if (threshold == ALL) {
+                return Optional.of(CountEstimate.exact(hits));
+            }
+            if (hits < minHits) {
+                return Optional.empty();
+            }
+            // Agresti-Coull: the spread comes from the share with two extra hits and misses, so that a sample where
+            // every player matched still gets an honest bound; the last factor corrects for sampling without
+            // replacement.
+            double n = sample.size();
+            double adjusted = (hits + 2) / (n + 4);
+            double error = Z * rows * Math.sqrt(adjusted * (1 - adjusted) / (n + 4) * (1 - n / rows));
+            return Optional.of(CountEstimate.estimated((int) Math.round(hits / n * rows), (int) Math.ceil(error)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload(List<Player> players) {
+        lock.writeLock().lock();
+        try {
+            sample.clear();
+            threshold = ALL;
+            rows = 0;
+            players.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        lock.writeLock().lock();
+        try {
+            if (previous == null) {
+                add(current);
+            } else if (sample.containsKey(hash(current))) {
+                sample.put(hash(current), current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        lock.writeLock().lock();
+        try {
+            sample.remove(hash(player));
+            rows--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Player player) {
+        rows++;
+        long hash = hash(player);
+        if (Long.compareUnsigned(hash, threshold) > 0) {
+            return;
+        }
+        sample.put(hash, player);
+        if (sample.size() > size) {
+            sample.pollLastEntry();
+            threshold = sample.lastKey();
+        }
+    }
+
+    private static boolean matches(Player player, List<Predicate<Player>> conditions) {
+        for (Predicate<Player> condition : conditions) {
+            if (!condition.test(player)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // SplitMix64's finalizer, compared unsigned: a bijection, so distinct ids never share a slot, and it spreads
+    // consecutive ids evenly.
+    private static long hash(Player player) {
+        long z = player.getId() + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
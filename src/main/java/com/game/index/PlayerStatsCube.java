@@ -0,0 +1,220 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerChangeListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Player counts by race, profession, banned and level. Each (race, profession, banned) row is a
+ * Fenwick tree over levels, so any level range is summed in O(log levels). The counts follow the changes made
+ * through this application only, so they are reconciled with the database from time to time.
+ */
+@Component
+public class PlayerStatsCube implements PlayerChangeListener {
+    public static final int MAX_LEVEL = 446;
+
+    private static final Race[] RACES = Race.values();
+    private static final Profession[] PROFESSIONS = Profession.values();
+    private static final int LEVELS = MAX_LEVEL + 1;
+
+    private final int[][] rows = new int[RACES.length * PROFESSIONS.length * 2][LEVELS + 1];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Guarded by lock.
+    private long changes;
+
+    public int count(Race race, Profession profession, Boolean banned, Integer minLevel, Integer maxLevel) {
+        int from = minLevel == null ? 0 : Math.max(minLevel, 0);
+        int to = maxLevel == null ? MAX_LEVEL : Math.min(maxLevel, MAX_LEVEL);
+        if (from > to) {
+            return 0;
+        }
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            for (Race r : RACES) {
+                if (race != null && race != r) {
+                    continue;
+                }
+                for (Profession p : PROFESSIONS) {
+                    if (profession != null && profession != p) {
+                        continue;
+                    }
+                    if (banned == null || !banned) {
+                        count += sum(rows[row(r, p, false)], from, to);
+                    }
+                    if (banned == null || banned) {
+                        count += sum(rows[row(r, p, true)], from, to);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    public List<StatsCell> cells(int levelBucket) {
+        List<StatsCell> cells = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Race race : RACES) {
+                for (Profession profession : PROFESSIONS) {
+                    for (boolean banned : new boolean[]{false, true}) {
+                        int[] tree = rows[row(race, profession, banned)];
+                        for (int from = 0; from <= MAX_LEVEL; from += levelBucket) {
+                            int to = Math.min(from + levelBucket - 1, MAX_LEVEL);
+                            int count = sum(tree, from, to);
+                            if (count > 0) {
+                                cells.add(new StatsCell(race, profession, banned, from, to, count));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return cells;
+    }
+
+    /**
+     * Marks a change as in flight, from before it is committed until {@link #endChange()} after its listeners ran.
+     */
+    public void beginChange() {
+        inFlight.incrementAndGet();
+    }
+
+    public void endChange() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * The number of changes applied so far, to pass to {@link #reconcile}.
+     */
+    public long changes() {
+        lock.readLock().lock();
+        try {
+            return changes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the counts with {@code cells}, rows of race, profession, banned, level and count as the database
+     * holds them, and returns how many players the counts were off by. A change in flight or applied after
+     * {@code changes} may or may not be in the cells, and may or may not reach the counts before they are replaced,
+     * so then the counts are left as they are and -1 is returned.
+     */
+    public long reconcile(long changes, List<Object[]> cells) {
+        int[][] counted = new int[rows.length][LEVELS];
+        for (Object[] cell : cells) {
+            if (cell[0] != null && cell[1] != null && cell[3] != null) {
+                int level = Math.min(Math.max((Integer) cell[3], 0), MAX_LEVEL);
+                counted[row((Race) cell[0], (Profession) cell[1], Boolean.TRUE.equals(cell[2]))][level] +=
+                        ((Number) cell[4]).intValue();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (inFlight.get() > 0 || this.changes != changes) {
+                return -1;
+            }
+            long drift = 0;
+            for (int row = 0; row < rows.length; row++) {
+                for (int level = 0; level <= MAX_LEVEL; level++) {
+                    drift += Math.abs(sum(rows[row], level, level) - counted[row][level]);
+                }
+                Arrays.fill(rows[row], 0);
+                for (int level = 0; level <= MAX_LEVEL; level++) {
+                    if (counted[row][level] != 0) {
+                        add(rows[row], level, counted[row][level]);
+                    }
+                }
+            }
+            this.changes++;
+            return drift;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload(List<Player> players) {
+        lock.writeLock().lock();
+        try {
+            for (int[] tree : rows) {
+                Arrays.fill(tree, 0);
+            }
+            players.forEach(player -> add(player, 1));
+            changes++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                add(previous, -1);
+            }
+            add(current, 1);
+            changes++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        lock.writeLock().lock();
+        try {
+            add(player, -1);
+            changes++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Player player, int delta) {
+        if (player.getRace() == null || player.getProfession() == null || player.getLevel() == null) {
+            return;
+        }
+        add(rows[row(player.getRace(), player.getProfession(), Boolean.TRUE.equals(player.getBanned()))],
+                Math.min(Math.max(player.getLevel(), 0), MAX_LEVEL), delta);
+    }
+
+    private static void add(int[] tree, int level, int delta) {
+        for (int i = level + 1; i <= LEVELS; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private static int sum(int[] tree, int from, int to) {
+        return prefix(tree, to + 1) - prefix(tree, from);
+    }
+
+    private static int prefix(int[] tree, int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static int row(Race race, Profession profession, boolean banned) {
+        return (race.ordinal() * PROFESSIONS.length + profession.ordinal()) * 2 + (banned ? 1 : 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.game.index;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+public class StatsCell {
+    private final Race race;
+    private final Profession profession;
+    private final Boolean banned;
+    private final Integer minLevel;
+    private final Integer maxLevel;
+    private final Integer count;
+
+    public StatsCell(Race race, Profession profession, Boolean banned, Integer minLevel, Integer maxLevel,
+                     Integer count) {
+        this.race = race;
+        this.profession = profession;
+        this.banned = banned;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.count = count;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public Profession getProfession() {
+        return profession;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public Integer getMinLevel() {
+        return minLevel;
+    }
+
+    public Integer getMaxLevel() {
+        return maxLevel;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,116 @@
+package com.game.journal;
+
+import com.game.entity.Player;
+import com.game.events.PlayerChange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments of a {@link PlayerJournal} directory in sequence order, each mapped into memory. A segment ends
+ * at its first incomplete or corrupt record: that is where a crash tore a write that was never synced, and the
+ * writer carries on in a new segment after a restart.
+ */
+public final class JournalReader {
+    static final String SUFFIX = ".journal";
+
+    private final Path directory;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Hands every record with a sequence above {@code after} to {@code action} in order, and returns the last
+     * sequence read, or {@code after} when there was none.
+     */
+    public long replay(long after, Consumer<JournalRecord> action) throws IOException {
+        List<Path> segments = segments();
+        long last = after;
+        for (int i = 0; i < segments.size(); i++) {
+            // A segment followed by one starting at or before the next wanted record holds nothing new.
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= after + 1) {
+                continue;
+            }
+            last = read(segments.get(i), last, action);
+        }
+        return last;
+    }
+
+    /**
+     * The players as the journal leaves them, by id: every save replaces the player, every delete removes it.
+     */
+    public Map<Long, Player> rebuild() throws IOException {
+        Map<Long, Player> players = new TreeMap<>();
+        replay(0, record -> {
+            PlayerChange change = record.getChange();
+            if (change.getType() == PlayerChange.Type.DELETED) {
+                players.remove(change.getId());
+            } else {
+                players.put(change.getId(), change.getPlayer());
+            }
+        });
+        return players;
+    }
+
+    /**
+     * The sequence of the last whole record, or 0 for an empty journal; reads only the newest segments.
+     */
+    public long lastSequence() throws IOException {
+        List<Path> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            long last = read(segments.get(i), 0, record -> {
+            });
+            if (last > 0) {
+                return last;
+            }
+        }
+        return 0;
+    }
+
+    static Path segment(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Names are zero-padded first sequences, so they sort in sequence order.
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static long read(Path segment, long after, Consumer<JournalRecord> action) throws IOException {
+        long last = after;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (JournalRecord record = JournalRecord.decode(buffer); record != null;
+                 record = JournalRecord.decode(buffer)) {
+                if (record.getSequence() > last) {
+                    action.accept(record);
+                    last = record.getSequence();
+                }
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,191 @@
+package com.game.journal;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.events.PlayerChange;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.zip.CRC32;
+
+/**
+ * One journaled player change. On disk a record is its body length and CRC-32 followed by the body: sequence,
+ * timestamp, change type and player id, then for saves a bitmask of the player fields present and those fields.
+ * Deletes carry only the id.
+ */
+public final class JournalRecord {
+    static final int HEADER_BYTES = 8;
+    // Header, sequence, timestamp, type, id, field bitmask, both string lengths and every other field.
+    private static final int MAX_FIXED_BYTES = HEADER_BYTES + 8 + 8 + 1 + 8 + 2 + 4 + 4 + 1 + 1 + 4 + 4 + 4 + 8 + 1 + 8;
+
+    private static final int NAME = 1;
+    private static final int TITLE = 1 << 1;
+    private static final int RACE = 1 << 2;
+    private static final int PROFESSION = 1 << 3;
+    private static final int EXPERIENCE = 1 << 4;
+    private static final int LEVEL = 1 << 5;
+    private static final int UNTIL_NEXT_LEVEL = 1 << 6;
+    private static final int BIRTHDAY = 1 << 7;
+    private static final int BANNED = 1 << 8;
+    private static final int VERSION = 1 << 9;
+
+    private final long sequence;
+    private final long timestamp;
+    private final PlayerChange change;
+
+    JournalRecord(long sequence, long timestamp, PlayerChange change) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.change = change;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * When the change was handed to the journal, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public PlayerChange getChange() {
+        return change;
+    }
+
+    ByteBuffer encode() {
+        Player player = change.getPlayer();
+        byte[] name = player == null || player.getName() == null ? null : utf8(player.getName());
+        byte[] title = player == null || player.getTitle() == null ? null : utf8(player.getTitle());
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_FIXED_BYTES + (name == null ? 0 : name.length)
+                + (title == null ? 0 : title.length));
+        buffer.position(HEADER_BYTES);
+        buffer.putLong(sequence).putLong(timestamp).put((byte) change.getType().ordinal()).putLong(change.getId());
+        if (player != null) {
+            int present = (name == null ? 0 : NAME) | (title == null ? 0 : TITLE)
+                    | (player.getRace() == null ? 0 : RACE) | (player.getProfession() == null ? 0 : PROFESSION)
+                    | (player.getExperience() == null ? 0 : EXPERIENCE) | (player.getLevel() == null ? 0 : LEVEL)
+                    | (player.getUntilNextLevel() == null ? 0 : UNTIL_NEXT_LEVEL)
+                    | (player.getBirthday() == null ? 0 : BIRTHDAY) | (player.getBanned() == null ? 0 : BANNED)
+                    | (player.getVersion() == null ? 0 : VERSION);
+            buffer.putShort((short) present);
+            if (name != null) {
+                buffer.putInt(name.length).put(name);
+            }
+            if (title != null) {
+                buffer.putInt(title.length).put(title);
+            }
+            if (player.getRace() != null) {
+                buffer.put((byte) player.getRace().ordinal());
+            }
+            if (player.getProfession() != null) {
+                buffer.put((byte) player.getProfession().ordinal());
+            }
+            if (player.getExperience() != null) {
+                buffer.putInt(player.getExperience());
+            }
+            if (player.getLevel() != null) {
+                buffer.putInt(player.getLevel());
+            }
+            if (player.getUntilNextLevel() != null) {
+                buffer.putInt(player.getUntilNextLevel());
+            }
+            if (player.getBirthday() != null) {
+                buffer.putLong(player.getBirthday().getTime());
+            }
+            if (player.getBanned() != null) {
+                buffer.put((byte) (player.getBanned() ? 1 : 0));
+            }
+            if (player.getVersion() != null) {
+                buffer.putLong(player.getVersion());
+            }
+        }
+        int length = buffer.position() - HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads the record at the buffer's position and moves past it, or returns {@code null} without moving when the
+     * rest of the buffer does not hold a whole record with a matching checksum, as after a write torn by a crash.
+     */
+    static JournalRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        int checksum = buffer.getInt(start + 4);
+        if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        buffer.position(start + HEADER_BYTES);
+        buffer.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return null;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(body);
+        long sequence = in.getLong();
+        long timestamp = in.getLong();
+        PlayerChange.Type type = PlayerChange.Type.values()[in.get()];
+        long id = in.getLong();
+        Player player = null;
+        if (type != PlayerChange.Type.DELETED) {
+            int present = in.getShort();
+            player = new Player();
+            player.setId(id);
+            if ((present & NAME) != 0) {
+                player.setName(string(in));
+            }
+            if ((present & TITLE) != 0) {
+                player.setTitle(string(in));
+            }
+            if ((present & RACE) != 0) {
+                player.setRace(Race.values()[in.get()]);
+            }
+            if ((present & PROFESSION) != 0) {
+                player.setProfession(Profession.values()[in.get()]);
+            }
+            if ((present & EXPERIENCE) != 0) {
+                player.setExperience(in.getInt());
+            }
+            if ((present & LEVEL) != 0) {
+                player.setLevel(in.getInt());
+            }
+            if ((present & UNTIL_NEXT_LEVEL) != 0) {
+                player.setUntilNextLevel(in.getInt());
+            }
+            if ((present & BIRTHDAY) != 0) {
+                player.setBirthday(new Date(in.getLong()));
+            }
+            if ((present & BANNED) != 0) {
+                player.setBanned(in.get() != 0);
+            }
+            if ((present & VERSION) != 0) {
+                player.setVersion(in.getLong());
+            }
+        }
+        return new JournalRecord(sequence, timestamp, new PlayerChange(type, id, player));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
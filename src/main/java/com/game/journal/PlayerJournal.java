@@ -0,0 +1,290 @@
+package com.game.journal;
+
+import com.game.entity.Player;
+import com.game.events.PlayerChange;
+import com.game.metrics.MetricsRegistry;
+import com.game.service.PlayerChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only history of every player change, for auditing and for rebuilding state with a {@link JournalReader}.
+ * Changes are queued as they are committed and written by a single thread: it takes everything queued while the
+ * previous write was syncing (up to {@code maxBatch} changes), writes it with one gathering write and syncs once, so
+ * a burst of changes shares one fsync. Segments roll over to a new file, named by its first sequence, once they
+ * would grow past {@code segmentBytes}. At most {@code queueCapacity} changes wait for the writer; past that,
+ * committing threads block until it catches up.
+ * <p>
+ * The service answers a change only after {@link #flush()} returns, so the only changes the journal can miss are those
+ * committed to the database just before a crash and not yet synced. A batch that fails to write is retried once in a
+ * new segment under the same sequences; if that fails too, its sequences are skipped, logged and counted in
+ * {@code player_journal_failures_total}, so a gap in the journal is never silent.
+ */
+@Component
+public class PlayerJournal implements PlayerChangeListener, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(PlayerJournal.class);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxBatch;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong appended = new AtomicLong();
+    private final Object progress = new Object();
+    private final MetricsRegistry.Counter records;
+    private final MetricsRegistry.Counter syncs;
+    private final MetricsRegistry.Counter failures;
+    private final MetricsRegistry.Histogram batches;
+    private final Thread writer;
+    private volatile boolean closing;
+    private volatile long lastSequence;
+    // Guarded by progress.
+    private long processed;
+    // Owned by the writer thread.
+    private FileChannel segment;
+    private long segmentSize;
+    private long sequence;
+
+    public PlayerJournal(MetricsRegistry metricsRegistry,
+                         @Value("${game.journal.enabled}") boolean enabled,
+                         @Value("${game.journal.directory}") String directory,
+                         @Value("${game.journal.segment-bytes}") long segmentBytes,
+                         @Value("${game.journal.max-batch}") int maxBatch,
+                         @Value("${game.journal.queue-capacity}") int queueCapacity) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+        this.records = metricsRegistry.counter("player_journal_records_total", "Player changes written to the journal");
+        this.syncs = metricsRegistry.counter("player_journal_syncs_total", "Journal fsyncs");
+        this.failures = metricsRegistry.counter("player_journal_failures_total",
+                "Player changes lost because the journal write failed");
+        this.batches = metricsRegistry.histogram("player_journal_batch_records", "Player changes per journal fsync",
+                MetricsRegistry.ROW_BUCKETS);
+        if (enabled) {
+            Files.createDirectories(this.directory);
+            sequence = new JournalReader(this.directory).lastSequence();
+            lastSequence = sequence;
+            writer = new Thread(this::write, "journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    public JournalReader reader() {
+        return new JournalReader(directory);
+    }
+
+    /**
+     * The sequence of the last change known to be on disk.
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Waits until every change handed to the journal so far has been written and synced, or has failed to be.
+     */
+    public void flush() throws InterruptedException {
+        long target = appended.get();
+        synchronized (progress) {
+            while (processed < target) {
+                progress.wait();
+            }
+        }
+    }
+
+    // A reload is the database's state rather than a change to it, so there is nothing to journal.
+    @Override
+    public void reload(List<Player> players) {
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        append(new PlayerChange(previous == null ? PlayerChange.Type.CREATED : PlayerChange.Type.UPDATED,
+                current.getId(), current));
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        append(new PlayerChange(PlayerChange.Type.DELETED, player.getId(), null));
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        closing = true;
+        writer.join();
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private void append(PlayerChange change) {
+        if (writer == null || closing) {
+            return;
+        }
+        try {
+            queue.put(new Entry(System.currentTimeMillis(), change));
+            appended.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.increment();
+            log.error("Player change {} of player {} was not journaled: interrupted while the queue was full",
+                    change.getType(), change.getId());
+        }
+    }
+
+    private void write() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closing) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failures.add(batch.size());
+                log.error("Writing {} player changes to the journal failed", batch.size(), e);
+            } finally {
+                synchronized (progress) {
+                    processed += batch.size();
+                    progress.notifyAll();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        List<ByteBuffer> encoded = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            encoded.add(new JournalRecord(sequence + encoded.size() + 1, entry.timestamp, entry.change).encode());
+        }
+        try {
+            write(encoded, sequence + 1);
+        } catch (IOException first) {
+            // The segment may now end in a torn record, so the same records go to a new one. Those the first attempt
+            // got to disk are then there twice, with the same sequence and content, and the reader skips the repeat.
+            log.warn("Writing {} player changes to the journal failed, retrying in a new segment", batch.size(),
+                    first);
+            closeSegmentQuietly();
+            encoded.forEach(ByteBuffer::rewind);
+            try {
+                write(encoded, sequence + 1);
+            } catch (IOException second) {
+                // Part of the records may be on disk, so their sequences cannot be given to other changes.
+                failures.add(batch.size());
+                log.error("Journal sequences {} to {} are missing: writing them failed twice", sequence + 1,
+                        sequence + batch.size(), second);
+                closeSegmentQuietly();
+            }
+        }
+        sequence += batch.size();
+    }
+
+    // Writes records numbered from first on with one gathering write per segment, and syncs before returning.
+    private void write(List<ByteBuffer> encoded, long first) throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>(encoded.size());
+        long next = first;
+        for (ByteBuffer record : encoded) {
+            if (segment == null || segmentSize > 0 && segmentSize + record.remaining() > segmentBytes) {
+                roll(buffers, next);
+            }
+            buffers.add(record);
+            segmentSize += record.remaining();
+            next++;
+        }
+        writeAll(buffers);
+        segment.force(false);
+        syncs.increment();
+        records.add(encoded.size());
+        batches.observe(encoded.size());
+        lastSequence = next - 1;
+    }
+
+    // Finishes the current segment with what is pending for it and opens the next one, starting at record first.
+    private void roll(List<ByteBuffer> buffers, long first) throws IOException {
+        if (segment != null) {
+            writeAll(buffers);
+            segment.force(false);
+            syncs.increment();
+            segment.close();
+            segment = null;
+        }
+        // A segment left by a crash or a failed write before its first whole record has nothing worth keeping.
+        segment = FileChannel.open(JournalReader.segment(directory, first), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segmentSize = 0;
+        forceDirectory();
+    }
+
+    private void writeAll(List<ByteBuffer> buffers) throws IOException {
+        ByteBuffer[] pending = buffers.toArray(new ByteBuffer[0]);
+        while (pending.length > 0 && pending[pending.length - 1].hasRemaining()) {
+            segment.write(pending);
+        }
+        buffers.clear();
+    }
+
+    // A new segment survives a crash only once its directory entry does; where the platform cannot sync a
+    // directory, the file system's own ordering has to do.
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Cannot sync journal directory {}", directory, e);
+        }
+    }
+
+    // After a failed write the segment may end in a torn record, so later records go to a new segment.
+    private void closeSegmentQuietly() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.debug("Closing journal segment failed", e);
+        }
+        segment = null;
+    }
+
+    private static final class Entry {
+        private final long timestamp;
+        private final PlayerChange change;
+
+        private Entry(long timestamp, PlayerChange change) {
+            this.timestamp = timestamp;
+            this.change = change;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.game.metrics;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+@Component
+public class EntityLoadCounter extends EmptyInterceptor {
+    private static final ThreadLocal<int[]> LOADED = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        LOADED.get()[0]++;
+        return false;
+    }
+
+    public void reset() {
+        LOADED.get()[0] = 0;
+    }
+
+    public int get() {
+        return LOADED.get()[0];
+    }
+}
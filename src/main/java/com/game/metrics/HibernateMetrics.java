@@ -0,0 +1,59 @@
+package com.game.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+@Component
+@Profile("!sharded")
+public class HibernateMetrics {
+
+    @Autowired
+    public HibernateMetrics(EntityManagerFactory entityManagerFactory, MetricsRegistry metricsRegistry) {
+        register(entityManagerFactory, metricsRegistry);
+    }
+
+    public static void register(EntityManagerFactory entityManagerFactory, MetricsRegistry metricsRegistry,
+                                String... labels) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        metricsRegistry.gauge("hibernate_statements_prepared_total", "JDBC statements prepared", "counter",
+                statistics::getPrepareStatementCount, labels);
+        metricsRegistry.gauge("hibernate_queries_executed_total", "HQL/SQL queries executed", "counter",
+                statistics::getQueryExecutionCount, labels);
+        metricsRegistry.gauge("hibernate_entities_loaded_total", "Entities loaded", "counter",
+                statistics::getEntityLoadCount, labels);
+        metricsRegistry.gauge("hibernate_entities_fetched_total", "Entities fetched", "counter",
+                statistics::getEntityFetchCount, labels);
+        metricsRegistry.gauge("hibernate_entities_inserted_total", "Entities inserted", "counter",
+                statistics::getEntityInsertCount, labels);
+        metricsRegistry.gauge("hibernate_entities_updated_total", "Entities updated", "counter",
+                statistics::getEntityUpdateCount, labels);
+        metricsRegistry.gauge("hibernate_entities_deleted_total", "Entities deleted", "counter",
+                statistics::getEntityDeleteCount, labels);
+        metricsRegistry.gauge("hibernate_second_level_cache_requests_total", "Second level cache lookups", "counter",
+                statistics::getSecondLevelCacheHitCount, with(labels, "result", "hit"));
+        metricsRegistry.gauge("hibernate_second_level_cache_requests_total", "Second level cache lookups", "counter",
+                statistics::getSecondLevelCacheMissCount, with(labels, "result", "miss"));
+        metricsRegistry.gauge("hibernate_query_cache_requests_total", "Query cache lookups", "counter",
+                statistics::getQueryCacheHitCount, with(labels, "result", "hit"));
+        metricsRegistry.gauge("hibernate_query_cache_requests_total", "Query cache lookups", "counter",
+                statistics::getQueryCacheMissCount, with(labels, "result", "miss"));
+        metricsRegistry.gauge("hibernate_transactions_total", "Transactions completed", "counter",
+                statistics::getTransactionCount, labels);
+        metricsRegistry.gauge("hibernate_sessions_opened_total", "Sessions opened", "counter",
+                statistics::getSessionOpenCount, labels);
+        metricsRegistry.gauge("hibernate_connections_obtained_total", "JDBC connections obtained", "counter",
+                statistics::getConnectCount, labels);
+    }
+
+    private static String[] with(String[] labels, String... more) {
+        String[] all = Arrays.copyOf(labels, labels.length + more.length);
+        System.arraycopy(more, 0, all, labels.length, more.length);
+        return all;
+    }
+}
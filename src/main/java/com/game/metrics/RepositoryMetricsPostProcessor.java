@@ -0,0 +1,55 @@
+package com.game.metrics;
+
+import com.game.repository.PlayerRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+// Ordered, so it advises the repository before unordered post-processors such as the circuit breaker, which
+// then wraps the timed calls: rejected calls never reach the database and are not timed.
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor, Ordered {
+    private final MetricsRegistry metricsRegistry;
+
+    @Autowired
+    public RepositoryMetricsPostProcessor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof PlayerRepository)) {
+            return bean;
+        }
+        MethodInterceptor timing = invocation -> {
+            String method = invocation.getMethod().getName();
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                metricsRegistry.counter("player_repository_errors_total", "PlayerRepository calls that threw",
+                        "method", method).increment();
+                throw e;
+            } finally {
+                metricsRegistry.histogram("player_repository_seconds", "PlayerRepository call latency",
+                        MetricsRegistry.LATENCY_BUCKETS, "method", method).observeNanos(System.nanoTime() - start);
+            }
+        };
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, timing);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(timing);
+        return proxyFactory.getProxy();
+    }
+}
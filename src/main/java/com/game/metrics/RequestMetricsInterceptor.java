@@ -0,0 +1,55 @@
+package com.game.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Component
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    private final MetricsRegistry metricsRegistry;
+    private final EntityLoadCounter entityLoadCounter;
+    private final StartupTimeline startupTimeline;
+
+    @Autowired
+    public RequestMetricsInterceptor(MetricsRegistry metricsRegistry, EntityLoadCounter entityLoadCounter,
+                                     StartupTimeline startupTimeline) {
+        this.metricsRegistry = metricsRegistry;
+        this.entityLoadCounter = entityLoadCounter;
+        this.startupTimeline = startupTimeline;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        entityLoadCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - (Long) start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNMATCHED" : pattern.toString();
+        String method = request.getMethod();
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+
+        metricsRegistry.histogram("http_server_requests_seconds", "REST endpoint latency",
+                MetricsRegistry.LATENCY_BUCKETS, "method", method, "uri", uri).observeNanos(elapsed);
+        metricsRegistry.counter("http_server_requests_total", "REST responses by status code",
+                "method", method, "uri", uri, "status", Integer.toString(status)).increment();
+        metricsRegistry.histogram("http_server_entities_loaded", "Hibernate entities loaded per request",
+                MetricsRegistry.ROW_BUCKETS, "method", method, "uri", uri).observe(entityLoadCounter.get());
+        startupTimeline.requestServed();
+    }
+}
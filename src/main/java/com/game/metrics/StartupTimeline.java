@@ -0,0 +1,182 @@
+package com.game.metrics;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records how long the application took to come up: the phases from JVM start to the first served request, and
+ * the time every bean spent in creation, both including and excluding the beans it pulled in (self time).
+ * Lazily created beans are recorded whenever they are created.
+ */
+@Component
+public class StartupTimeline implements InstantiationAwareBeanPostProcessor, PriorityOrdered,
+        SmartInitializingSingleton, ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware {
+    private static final String[] MARKS = {
+            "jvm", "refresh", "post-processors", "singletons", "refreshed", "web", "first-request"};
+    private static final String[] PHASES = {
+            "JVM start, container and configuration loading",
+            "Bean definitions, scanning and factory post-processors",
+            "Eager singletons",
+            "Refresh callbacks",
+            "Web context",
+            "Until the first request was served"};
+
+    private final Map<String, Long> marks = new ConcurrentHashMap<>();
+    private final Map<String, BeanTiming> beans = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final AtomicBoolean firstRequest = new AtomicBoolean();
+    private ApplicationContext context;
+
+    public StartupTimeline() {
+        marks.put("jvm", ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext context) {
+        this.context = context;
+        marks.put("refresh", context.getStartupDate());
+        marks.put("post-processors", System.currentTimeMillis());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        creating.get().push(new Frame(beanName, beanClass, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Deque<Frame> stack = creating.get();
+        if (stack.stream().noneMatch(frame -> frame.name.equals(beanName))) {
+            return bean;
+        }
+        Frame frame = stack.pop();
+        while (!frame.name.equals(beanName)) {
+            frame = stack.pop();
+        }
+        long total = System.nanoTime() - frame.start;
+        beans.put(beanName, new BeanTiming(beanName, frame.type.getName(), total, total - frame.children));
+        if (!stack.isEmpty()) {
+            stack.peek().children += total;
+        }
+        return bean;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        marks.putIfAbsent("singletons", System.currentTimeMillis());
+        MetricsRegistry metricsRegistry = context.getBean(MetricsRegistry.class);
+        for (int i = 1; i < MARKS.length; i++) {
+            String from = MARKS[i - 1];
+            String to = MARKS[i];
+            metricsRegistry.gauge("startup_phase_seconds", "Time spent in each startup phase", "gauge",
+                    () -> marks.containsKey(from) && marks.containsKey(to)
+                            ? (marks.get(to) - marks.get(from)) / 1e3 : Double.NaN, "phase", to);
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        marks.putIfAbsent(event.getApplicationContext() == context ? "refreshed" : "web",
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Called for every completed request; only the first one is recorded.
+     */
+    public void requestServed() {
+        if (!firstRequest.get() && firstRequest.compareAndSet(false, true)) {
+            marks.put("first-request", System.currentTimeMillis());
+        }
+    }
+
+    public String report(int topBeans) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-58s %10s %10s%n", "Phase", "took ms", "at ms"));
+        long jvm = marks.get("jvm");
+        long previous = jvm;
+        for (int i = 1; i < MARKS.length; i++) {
+            Long end = marks.get(MARKS[i]);
+            if (end == null) {
+                out.append(String.format("%-58s %10s %10s%n", PHASES[i - 1], "-", "-"));
+                continue;
+            }
+            out.append(String.format("%-58s %10d %10d%n", PHASES[i - 1], end - previous, end - jvm));
+            previous = end;
+        }
+        List<BeanTiming> slowest = new ArrayList<>(beans.values());
+        slowest.sort(Comparator.comparingLong((BeanTiming timing) -> timing.self).reversed());
+        out.append(String.format("%n%-40s %10s %10s  %s%n", "Bean (" + beans.size() + " created)", "self ms",
+                "total ms", "type"));
+        for (BeanTiming timing : slowest.subList(0, Math.min(topBeans, slowest.size()))) {
+            out.append(String.format("%-40s %10.1f %10.1f  %s%n", timing.name, timing.self / 1e6,
+                    timing.total / 1e6, timing.type));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Milliseconds from JVM start to each startup mark reached so far.
+     */
+    public Map<String, Long> marks() {
+        Map<String, Long> reached = new LinkedHashMap<>();
+        for (int i = 1; i < MARKS.length; i++) {
+            Long at = marks.get(MARKS[i]);
+            if (at != null) {
+                reached.put(MARKS[i], at - marks.get("jvm"));
+            }
+        }
+        return reached;
+    }
+
+    private static final class Frame {
+        private final String name;
+        private final Class<?> type;
+        private final long start;
+        private long children;
+
+        private Frame(String name, Class<?> type, long start) {
+            this.name = name;
+            this.type = type;
+            this.start = start;
+        }
+    }
+
+    private static final class BeanTiming {
+        private final String name;
+        private final String type;
+        private final long total;
+        private final long self;
+
+        private BeanTiming(String name, String type, long total, long self) {
+            this.name = name;
+            this.type = type;
+            this.total = total;
+            this.self = self;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.game.repository;
+
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * Thrown instead of calling the database while the repository circuit breaker is open.
+ */
+public class CircuitOpenException extends TransientDataAccessException {
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String method, long retryAfterMs) {
+        super("PlayerRepository." + method + " rejected: the database circuit is open for another "
+                + retryAfterMs + " ms");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -2,8 +2,72 @@ package com.game.repository;
 
 import com.game.entity.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface PlayerRepository extends JpaRepository<Player, Long> {
+public interface PlayerRepository extends JpaRepository<Player, Long>, JpaSpecificationExecutor<Player>,
+        PlayerSlices {
+
+    @Transactional
+    @Modifying
+    @Query("update Player p set p.banned = :banned, p.version = p.version + 1 where p.id in :ids")
+    int updateBanned(@Param("ids") Collection<Long> ids, @Param("banned") boolean banned);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Player p where p.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Soft-deletes the listed players that are not deleted yet.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Player p set p.deleted = true, p.version = p.version + 1 where p.id in :ids and p.deleted = false")
+    int markDeleted(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Player counts as rows of race, profession, banned, level and count.
+     */
+    @Query("select p.race, p.profession, p.banned, p.level, count(p) from Player p"
+            + " group by p.race, p.profession, p.banned, p.level")
+    List<Object[]> countByCell();
+
+    /**
+     * Removes up to {@code limit} soft-deleted players for good.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM player WHERE deleted = TRUE LIMIT :limit", nativeQuery = true)
+    int purgeDeleted(@Param("limit") int limit);
+
+    /**
+     * Adds {@code delta} to the experience of every listed player, kept within {@code [0, 10 000 000]}; levels are
+     * left as they were until {@link #updateLevels} and {@link #updateUntilNextLevel} run.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Player p set p.experience = case when p.experience + :delta < 0 then 0"
+            + " when p.experience + :delta > 10000000 then 10000000 else (p.experience + :delta) end,"
+            + " p.version = p.version + 1 where p.id in :ids")
+    int addExperience(@Param("ids") Collection<Long> ids, @Param("delta") int delta);
+
+    @Transactional
+    @Modifying
+    @Query("update Player p set p.level = floor((sqrt(2500 + 200 * p.experience) - 50) / 100) where p.id in :ids")
+    int updateLevels(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update Player p set p.untilNextLevel = 50 * (p.level + 1) * (p.level + 2) - p.experience"
+            + " where p.id in :ids")
+    int updateUntilNextLevel(@Param("ids") Collection<Long> ids);
 }
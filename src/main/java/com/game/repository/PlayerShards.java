@@ -0,0 +1,386 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Routes {@link PlayerRepository} calls across shards. A player lives on shard {@code id % shards}: every shard
+ * hands out ids from its own residue class, so lookups by id touch one shard, while new players are placed by a
+ * configurable key. Unkeyed reads, specifications and examples included, fan out to all shards in parallel and are
+ * merged; batches of players are split among their owning shards.
+ */
+public class PlayerShards implements DisposableBean {
+    private final List<Shard> shards;
+    private final ToIntFunction<Player> placement;
+    private final boolean binaryCollation;
+    private final ExecutorService executor;
+    private final PlayerRepository router;
+
+    public PlayerShards(List<Shard> shards, String placementKey, boolean binaryCollation) {
+        this.shards = new ArrayList<>(shards);
+        this.placement = placement(placementKey, shards.size());
+        this.binaryCollation = binaryCollation;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.size(), task -> {
+            Thread thread = new Thread(task, "player-shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.router = (PlayerRepository) Proxy.newProxyInstance(PlayerRepository.class.getClassLoader(),
+                new Class<?>[]{PlayerRepository.class}, new Router());
+    }
+
+    public PlayerRepository router() {
+        return router;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) shards.size());
+    }
+
+    public Shard shard(int index) {
+        return shards.get(index);
+    }
+
+    public List<PlatformTransactionManager> transactionManagers() {
+        return shards.stream().map(Shard::getTransactionManager).collect(Collectors.toList());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        shards.forEach(shard -> shard.getEntityManagerFactory().close());
+    }
+
+    private static ToIntFunction<Player> placement(String key, int shards) {
+        if ("id".equals(key)) {
+            AtomicInteger next = new AtomicInteger();
+            return player -> Math.floorMod(next.getAndIncrement(), shards);
+        }
+        Function<Player, Object> property;
+        switch (key) {
+            case "name":
+                property = Player::getName;
+                break;
+            case "race":
+                property = Player::getRace;
+                break;
+            case "profession":
+                property = Player::getProfession;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported shard key: " + key);
+        }
+        return player -> Math.floorMod(Objects.hashCode(property.apply(player)), shards);
+    }
+
+    private Shard owner(Player player) {
+        return shards.get(player.getId() == null ? placement.applyAsInt(player) : shardOf(player.getId()));
+    }
+
+    private <T> List<T> fanOut(Function<PlayerRepository, T> call) {
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> call.apply(shard.getRepository()), executor))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    // Shards break ties by id, so the merged order matches what a single database would return.
+    private static Sort withTieBreak(Sort sort) {
+        return sort.getOrderFor("id") == null ? sort.and(Sort.by("id")) : sort;
+    }
+
+    // Strings are merged in the order the shards sorted them in, which is case-insensitive unless the collation is
+    // binary; names equal but for case are left to the id tie-break, as in the shards.
+    private Comparator<Player> comparator(Sort sort) {
+        Comparator<Player> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            comparator = comparator.thenComparing(new PropertyComparator<>(order.getProperty(),
+                    order.isIgnoreCase() || !binaryCollation, order.isAscending()));
+        }
+        return comparator;
+    }
+
+    private static List<Player> merge(List<List<Player>> sorted, Comparator<Player> comparator, long skip,
+                                      long limit) {
+        PriorityQueue<ListIterator<Player>> heads = new PriorityQueue<>((left, right) -> comparator.compare(
+                peek(left), peek(right)));
+        sorted.stream().map(List::listIterator).filter(Iterator::hasNext).forEach(heads::add);
+        List<Player> merged = new ArrayList<>();
+        long position = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            ListIterator<Player> head = heads.poll();
+            Player player = head.next();
+            if (position++ >= skip) {
+                merged.add(player);
+            }
+            if (head.hasNext()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static Player peek(ListIterator<Player> iterator) {
+        Player player = iterator.next();
+        iterator.previous();
+        return player;
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        Class<?>[] parameters = method.getParameterTypes();
+        if (parameters.length > 0 && parameters[0] == Collection.class) {
+            // Bulk statements by id run on every shard owning some of the ids, each given only its own.
+            int affected = 0;
+            for (Map.Entry<Integer, List<Long>> owned : byShard((Collection<?>) args[0]).entrySet()) {
+                Object[] shardArgs = args.clone();
+                shardArgs[0] = owned.getValue();
+                affected += (Integer) invokeOn(shards.get(owned.getKey()).getRepository(), method, shardArgs);
+            }
+            return affected;
+        }
+        if (parameters.length == 0) {
+            switch (name) {
+                case "findAll":
+                    return fanOut(PlayerRepository::findAll).stream()
+                            .flatMap(List::stream)
+                            .collect(Collectors.toList());
+                case "count":
+                    return fanOut(PlayerRepository::count).stream().mapToLong(Long::longValue).sum();
+                case "countByCell":
+                    return fanOut(PlayerRepository::countByCell).stream()
+                            .flatMap(List::stream)
+                            .collect(Collectors.toList());
+                case "flush":
+                case "deleteAll":
+                case "deleteAllInBatch":
+                    shards.forEach(shard -> invokeOn(shard.getRepository(), method, args));
+                    return null;
+            }
+        } else if (name.equals("findSlice") || name.equals("findSliceForUpdate")) {
+            @SuppressWarnings("unchecked")
+            Specification<Player> specification = (Specification<Player>) args[0];
+            return findSlice(specification, (Pageable) args[1], name.equals("findSliceForUpdate"));
+        } else if (args[args.length - 1] instanceof Sort) {
+            return findAll(method, args, (Sort) args[args.length - 1]);
+        } else if (args[args.length - 1] instanceof Pageable) {
+            return findAll(method, args, (Pageable) args[args.length - 1]);
+        } else if (parameters.length == 1) {
+            Object arg = args[0];
+            if (arg instanceof Long) {
+                return invokeOn(shards.get(shardOf((Long) arg)).getRepository(), method, args);
+            }
+            if (arg instanceof Player) {
+                return invokeOn(owner((Player) arg).getRepository(), method, args);
+            }
+            if (name.equals("purgeDeleted")) {
+                return fanOut(shard -> shard.purgeDeleted((Integer) arg)).stream().mapToInt(Integer::intValue).sum();
+            }
+            if (arg instanceof Specification || arg instanceof Example) {
+                return query(method, args);
+            }
+            if (arg instanceof Iterable && name.equals("findAllById")) {
+                List<Player> found = new ArrayList<>();
+                byShard((Iterable<?>) arg).forEach((shard, ids) ->
+                        found.addAll(shards.get(shard).getRepository().findAllById(ids)));
+                return found;
+            }
+            if (arg instanceof Iterable) {
+                return byOwner(method, (Iterable<?>) arg);
+            }
+        }
+        throw new UnsupportedOperationException(method + " cannot be routed across shards");
+    }
+
+    // Specification and example queries: counts add up, lists are concatenated, findOne finds at most one player.
+    private Object query(Method method, Object[] args) {
+        List<Object> results = fanOut(shard -> invokeOn(shard, method, args));
+        switch (method.getName()) {
+            case "count":
+                return results.stream().mapToLong(count -> (Long) count).sum();
+            case "exists":
+                return results.contains(true);
+            case "findOne":
+                List<Object> found = results.stream()
+                        .map(result -> (Optional<?>) result)
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .collect(Collectors.toList());
+                if (found.size() > 1) {
+                    throw new IncorrectResultSizeDataAccessException(1, found.size());
+                }
+                return found.stream().findFirst();
+            case "findAll":
+                return results.stream()
+                        .flatMap(result -> ((List<?>) result).stream())
+                        .collect(Collectors.toList());
+            default:
+                throw new UnsupportedOperationException(method + " cannot be routed across shards");
+        }
+    }
+
+    // Batches of players go to their owning shards, each given only its own; saved players come back in the order
+    // they were given in.
+    @SuppressWarnings("unchecked")
+    private List<Player> byOwner(Method method, Iterable<?> players) {
+        List<Player> given = new ArrayList<>();
+        Map<Shard, List<Player>> owned = new LinkedHashMap<>();
+        for (Object player : players) {
+            given.add((Player) player);
+            owned.computeIfAbsent(owner((Player) player), shard -> new ArrayList<>()).add((Player) player);
+        }
+        Map<Player, Player> saved = new IdentityHashMap<>();
+        owned.forEach((shard, own) -> {
+            List<Player> result = (List<Player>) invokeOn(shard.getRepository(), method, new Object[]{own});
+            for (int i = 0; result != null && i < own.size(); i++) {
+                saved.put(own.get(i), result.get(i));
+            }
+        });
+        return method.getReturnType() == void.class ? null
+                : given.stream().map(saved::get).collect(Collectors.toList());
+    }
+
+    private Map<Integer, List<Long>> byShard(Iterable<?> ids) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Object id : ids) {
+            byShard.computeIfAbsent(shardOf((Long) id), shard -> new ArrayList<>()).add((Long) id);
+        }
+        return byShard;
+    }
+
+    // findAll with a Sort as the last argument, after the specification or example if any.
+    @SuppressWarnings("unchecked")
+    private List<Player> findAll(Method method, Object[] args, Sort sort) {
+        Object[] sorted = args.clone();
+        sorted[args.length - 1] = withTieBreak(sort);
+        return merge(fanOut(shard -> (List<Player>) invokeOn(shard, method, sorted)),
+                comparator((Sort) sorted[args.length - 1]), 0, Long.MAX_VALUE);
+    }
+
+    // findAll with a Pageable as the last argument, after the specification or example if any.
+    @SuppressWarnings("unchecked")
+    private Page<Player> findAll(Method method, Object[] args, Pageable pageable) {
+        Sort sort = withTieBreak(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            List<Player> all = fanOut(shard -> (Page<Player>) invokeOn(shard, method, args)).stream()
+                    .flatMap(page -> page.getContent().stream())
+                    .sorted(comparator(sort))
+                    .collect(Collectors.toList());
+            return new PageImpl<>(all);
+        }
+        // Each shard returns its first offset + size rows; the global page is cut from their merge.
+        Object[] head = args.clone();
+        head[args.length - 1] = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()),
+                sort);
+        List<Page<Player>> pages = fanOut(shard -> (Page<Player>) invokeOn(shard, method, head));
+        List<Player> content = merge(pages.stream().map(Page::getContent).collect(Collectors.toList()),
+                comparator(sort), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, pages.stream().mapToLong(Page::getTotalElements).sum());
+    }
+
+    // Locking reads run on the calling thread, one shard after the other, to take their locks in its transactions.
+    private Slice<Player> findSlice(Specification<Player> specification, Pageable pageable, boolean forUpdate) {
+        Sort sort = withTieBreak(pageable.getSort());
+        Pageable head = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), sort);
+        List<Slice<Player>> slices = forUpdate
+                ? shards.stream().map(shard -> shard.getRepository().findSliceForUpdate(specification, head))
+                .collect(Collectors.toList())
+                : fanOut(shard -> shard.findSlice(specification, head));
+        List<Player> content = merge(slices.stream().map(Slice::getContent).collect(Collectors.toList()),
+                comparator(sort), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize() || slices.stream().anyMatch(Slice::hasNext);
+        return new SliceImpl<>(content.subList(0, Math.min(content.size(), pageable.getPageSize())), pageable,
+                hasNext);
+    }
+
+    private static Object invokeOn(PlayerRepository repository, Method method, Object[] args) {
+        try {
+            return method.invoke(repository, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class Router implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PlayerShards" + shards.size();
+                default:
+                    return PlayerShards.this.invoke(method, args);
+            }
+        }
+    }
+
+    public static final class Shard {
+        private final PlayerRepository repository;
+        private final PlatformTransactionManager transactionManager;
+        private final EntityManagerFactory entityManagerFactory;
+
+        public Shard(PlayerRepository repository, PlatformTransactionManager transactionManager,
+                     EntityManagerFactory entityManagerFactory) {
+            this.repository = repository;
+            this.transactionManager = transactionManager;
+            this.entityManagerFactory = entityManagerFactory;
+        }
+
+        public PlayerRepository getRepository() {
+            return repository;
+        }
+
+        public PlatformTransactionManager getTransactionManager() {
+            return transactionManager;
+        }
+
+        public EntityManagerFactory getEntityManagerFactory() {
+            return entityManagerFactory;
+        }
+    }
+}
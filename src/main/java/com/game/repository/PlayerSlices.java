@@ -0,0 +1,25 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PlayerSlices {
+
+    /**
+     * A page of the players matching {@code specification} in a single statement: one row past the page tells
+     * whether there is a next one, instead of the count query a {@code Page} needs.
+     */
+    @Transactional(readOnly = true)
+    Slice<Player> findSlice(Specification<Player> specification, Pageable pageable);
+
+    /**
+     * {@link #findSlice} that also locks the rows it reads until the surrounding transaction ends, so that they
+     * cannot change between this read and the statements that follow it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    Slice<Player> findSliceForUpdate(Specification<Player> specification, Pageable pageable);
+}
@@ -0,0 +1,173 @@
+package com.game.repository;
+
+import com.game.metrics.MetricsRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.transaction.TransactionException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker around every {@link PlayerRepository} call. Among the last {@code window} calls, once at least
+ * {@code minCalls} were made, a share of {@code failureRate} that failed or took longer than {@code slowCallMs}
+ * opens the circuit: calls are then rejected at once with {@link CircuitOpenException} for {@code openMs}, after
+ * which a single trial call closes it again or reopens it. Only data access and transaction errors count, and not
+ * those the caller caused (an integrity violation, an empty result). The advice wraps the repository outside of its
+ * transaction, so a rejected call does not even take a connection.
+ */
+public class RepositoryCircuitBreaker implements BeanPostProcessor, MethodInterceptor {
+    private static final int CLOSED = 0;
+    private static final int HALF_OPEN = 1;
+    private static final int OPEN = 2;
+    private static final int REJECTED = 0;
+    private static final int NORMAL = 1;
+    private static final int TRIAL = 2;
+
+    private final boolean[] failed;
+    private final int minCalls;
+    private final double failureRate;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final MetricsRegistry metricsRegistry;
+    private int state = CLOSED;
+    private int calls;
+    private int failures;
+    private int next;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    public RepositoryCircuitBreaker(int window, int minCalls, double failureRate, long slowCallMs, long openMs,
+                                    MetricsRegistry metricsRegistry) {
+        this.failed = new boolean[Math.max(1, window)];
+        this.minCalls = Math.min(Math.max(1, minCalls), failed.length);
+        this.failureRate = failureRate;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.metricsRegistry = metricsRegistry;
+        metricsRegistry.gauge("player_repository_circuit_state",
+                "State of the PlayerRepository circuit breaker: 0 closed, 1 half-open, 2 open", "gauge",
+                this::state);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof PlayerRepository)) {
+            return bean;
+        }
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, this);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.addAdvice(this);
+        return proxyFactory.getProxy();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        long start = System.nanoTime();
+        int permit = acquire(start);
+        if (permit == REJECTED) {
+            metricsRegistry.counter("player_repository_rejected_total",
+                    "PlayerRepository calls rejected by the open circuit", "method", method).increment();
+            throw new CircuitOpenException(method, retryAfterMs(start));
+        }
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } catch (Throwable e) {
+            success = !isDatabaseFailure(e);
+            throw e;
+        } finally {
+            record(permit, !success || System.nanoTime() - start > slowCallNanos);
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return state == CLOSED;
+    }
+
+    /**
+     * Whether {@code e} says the database is unavailable or overloaded rather than that the call was wrong.
+     */
+    public static boolean isDatabaseFailure(Throwable e) {
+        if (e instanceof NonTransientDataAccessException) {
+            return e instanceof NonTransientDataAccessResourceException;
+        }
+        return e instanceof DataAccessException || e instanceof TransactionException;
+    }
+
+    private synchronized int state() {
+        return state;
+    }
+
+    private synchronized int acquire(long now) {
+        if (state == OPEN && now - openUntil >= 0) {
+            transition(HALF_OPEN);
+        }
+        if (state == CLOSED) {
+            return NORMAL;
+        }
+        if (state == HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return TRIAL;
+        }
+        return REJECTED;
+    }
+
+    private synchronized long retryAfterMs(long now) {
+        return state == OPEN ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(openUntil - now)) : 1;
+    }
+
+    private synchronized void record(int permit, boolean failure) {
+        if (permit == TRIAL) {
+            trialInFlight = false;
+            if (failure) {
+                open();
+            } else {
+                transition(CLOSED);
+            }
+            return;
+        }
+        if (state != CLOSED) {
+            return;
+        }
+        if (calls == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % failed.length;
+        if (calls >= minCalls && failures >= failureRate * calls) {
+            open();
+        }
+    }
+
+    private void open() {
+        openUntil = System.nanoTime() + openNanos;
+        transition(OPEN);
+    }
+
+    private void transition(int to) {
+        if (to == CLOSED) {
+            calls = 0;
+            failures = 0;
+            next = 0;
+        }
+        state = to;
+        metricsRegistry.counter("player_repository_circuit_transitions_total",
+                "PlayerRepository circuit breaker state changes", "to",
+                to == CLOSED ? "closed" : to == HALF_OPEN ? "half_open" : "open").increment();
+    }
+}
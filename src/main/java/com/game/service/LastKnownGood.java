@@ -0,0 +1,151 @@
+package com.game.service;
+
+import com.game.metrics.MetricsRegistry;
+import com.game.repository.RepositoryCircuitBreaker;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Stale-while-revalidate for read queries. Every fresh result is remembered as the query's last-known-good one;
+ * while the repository circuit is not closed, or when evaluating the query fails because of the database, that
+ * result is served instead, marked stale, as long as it is at most {@code maxStalenessMs} old. Each stale answer
+ * makes sure one background refresh of its query is running, which replaces the result once the database answers.
+ */
+@Component
+public class LastKnownGood implements DisposableBean {
+    private final Map<List<?>, Entry> entries;
+    private final Set<List<?>> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private final long maxStalenessMs;
+    private final RepositoryCircuitBreaker circuitBreaker;
+    private final MetricsRegistry metricsRegistry;
+
+    public LastKnownGood(@Value("${game.stale.max-staleness-ms}") long maxStalenessMs,
+                         @Value("${game.stale.max-entries}") int maxEntries,
+                         RepositoryCircuitBreaker circuitBreaker, MetricsRegistry metricsRegistry) {
+        this.entries = new LinkedHashMap<List<?>, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<?>, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.refresher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxEntries)), runnable -> {
+                    Thread thread = new Thread(runnable, "stale-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxStalenessMs = maxStalenessMs;
+        this.circuitBreaker = circuitBreaker;
+        this.metricsRegistry = metricsRegistry;
+        metricsRegistry.gauge("player_query_last_known_good", "Query results kept for serving stale", "gauge",
+                this::size);
+    }
+
+    /**
+     * @param key everything the result depends on, already normalized; compared with {@code equals}
+     */
+    public <V> QueryResult<V> serve(String query, List<?> key, Supplier<V> evaluation) {
+        List<?> entryKey = Arrays.asList(query, key);
+        if (!circuitBreaker.isClosed()) {
+            QueryResult<V> stale = stale(query, entryKey, evaluation);
+            if (stale != null) {
+                return stale;
+            }
+        }
+        V value;
+        try {
+            value = evaluation.get();
+        } catch (RuntimeException e) {
+            boolean degraded = e instanceof QueryTimeoutException || RepositoryCircuitBreaker.isDatabaseFailure(e);
+            QueryResult<V> stale = degraded ? stale(query, entryKey, evaluation) : null;
+            if (stale == null) {
+                throw e;
+            }
+            return stale;
+        }
+        remember(entryKey, value);
+        return QueryResult.fresh(value);
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> QueryResult<V> stale(String query, List<?> entryKey, Supplier<V> evaluation) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(entryKey);
+        }
+        long ageMs = entry == null ? 0 : System.currentTimeMillis() - entry.storedAt;
+        if (entry == null || ageMs > maxStalenessMs) {
+            return null;
+        }
+        metricsRegistry.counter("player_query_stale_total", "Queries answered with a last-known-good result",
+                "query", query).increment();
+        revalidate(query, entryKey, evaluation);
+        return QueryResult.stale((V) entry.value, ageMs);
+    }
+
+    private void revalidate(String query, List<?> entryKey, Supplier<?> evaluation) {
+        if (!refreshing.add(entryKey)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                String result = "failed";
+                try {
+                    remember(entryKey, evaluation.get());
+                    result = "ok";
+                } catch (RuntimeException e) {
+                    // The stale result stays; the next stale answer tries again.
+                } finally {
+                    refreshing.remove(entryKey);
+                    metricsRegistry.counter("player_query_revalidations_total",
+                            "Background refreshes of stale query results", "query", query, "result", result)
+                            .increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(entryKey);
+        }
+    }
+
+    private void remember(List<?> entryKey, Object value) {
+        synchronized (entries) {
+            entries.put(entryKey, new Entry(value, System.currentTimeMillis()));
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long storedAt;
+
+        private Entry(Object value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
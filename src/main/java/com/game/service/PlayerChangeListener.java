@@ -0,0 +1,21 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+import java.util.List;
+
+/**
+ * In-memory view of the player table kept current by {@link PlayerService}.
+ * Players handed to a listener are detached snapshots and must not be modified.
+ */
+public interface PlayerChangeListener {
+
+    void reload(List<Player> players);
+
+    /**
+     * @param previous the player before the change, or {@code null} when it was created
+     */
+    void onSaved(Player previous, Player current);
+
+    void onDeleted(Player player);
+}
@@ -0,0 +1,260 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+
+/**
+ * The filter parameters of the players API. An empty name or title and {@code null} everywhere else mean no
+ * condition. The same filter is evaluated in memory ({@link #predicates()}) or in SQL ({@link #specification()}).
+ * Substrings are matched case-sensitively in memory but with {@code LIKE} under the column collation in SQL, so
+ * {@link QueryPlanner} only lets a scan answer them when the collation is binary.
+ */
+public final class PlayerFilter {
+    private final String name;
+    private final String title;
+    private final Race race;
+    private final Profession profession;
+    private final Long after;
+    private final Long before;
+    private final Boolean banned;
+    private final Integer minExperience;
+    private final Integer maxExperience;
+    private final Integer minLevel;
+    private final Integer maxLevel;
+
+    public PlayerFilter(String name, String title, Race race, Profession profession, Long after, Long before,
+                        Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                        Integer maxLevel) {
+        this.name = name == null ? "" : name;
+        this.title = title == null ? "" : title;
+        this.race = race;
+        this.profession = profession;
+        this.after = after;
+        this.before = before;
+        this.banned = banned;
+        this.minExperience = minExperience;
+        this.maxExperience = maxExperience;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+    }
+
+    public List<Predicate<Player>> predicates() {
+        List<Predicate<Player>> predicates = new ArrayList<>();
+        if (!name.isEmpty()) {
+            predicates.add(player -> player.getName().contains(name));
+        }
+        if (!title.isEmpty()) {
+            predicates.add(player -> player.getTitle().contains(title));
+        }
+        if (race != null) {
+            predicates.add(player -> player.getRace().equals(race));
+        }
+        if (profession != null) {
+            predicates.add(player -> player.getProfession().equals(profession));
+        }
+        if (after != null) {
+            predicates.add(player -> player.getBirthday().getTime() >= after);
+        }
+        if (before != null) {
+            predicates.add(player -> player.getBirthday().getTime() <= before);
+        }
+        if (banned != null) {
+            predicates.add(player -> player.getBanned().equals(banned));
+        }
+        if (minExperience != null) {
+            predicates.add(player -> player.getExperience() >= minExperience);
+        }
+        if (maxExperience != null) {
+            predicates.add(player -> player.getExperience() <= maxExperience);
+        }
+        if (minLevel != null) {
+            predicates.add(player -> player.getLevel() >= minLevel);
+        }
+        if (maxLevel != null) {
+            predicates.add(player -> player.getLevel() <= maxLevel);
+        }
+        return predicates;
+    }
+
+    public Specification<Player> specification() {
+        return (root, query, builder) -> {
+            List<javax.persistence.criteria.Predicate> predicates = new ArrayList<>();
+            if (!name.isEmpty()) {
+                predicates.add(builder.like(root.get("name"), substring(name), '\\'));
+            }
+            if (!title.isEmpty()) {
+                predicates.add(builder.like(root.get("title"), substring(title), '\\'));
+            }
+            if (race != null) {
+                predicates.add(builder.equal(root.get("race"), race));
+            }
+            if (profession != null) {
+                predicates.add(builder.equal(root.get("profession"), profession));
+            }
+            if (after != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("birthday"), Date.valueOf(firstBirthday())));
+            }
+            if (before != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("birthday"), Date.valueOf(lastBirthday())));
+            }
+            if (banned != null) {
+                predicates.add(builder.equal(root.get("banned"), banned));
+            }
+            if (minExperience != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("experience"), minExperience));
+            }
+            if (maxExperience != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("experience"), maxExperience));
+            }
+            if (minLevel != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("level"), minLevel));
+            }
+            if (maxLevel != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("level"), maxLevel));
+            }
+            return builder.and(predicates.toArray(new javax.persistence.criteria.Predicate[0]));
+        };
+    }
+
+    /**
+     * The earliest birthday on or after {@code after}, or {@code null} without that bound. Birthdays are dates, so
+     * a bound within a day moves to the next midnight.
+     */
+    public LocalDate firstBirthday() {
+        if (after == null) {
+            return null;
+        }
+        LocalDateTime bound = LocalDateTime.ofInstant(Instant.ofEpochMilli(after), ZoneId.systemDefault());
+        return bound.toLocalTime().equals(LocalTime.MIDNIGHT) ? bound.toLocalDate()
+                : bound.toLocalDate().plusDays(1);
+    }
+
+    /**
+     * The latest birthday on or before {@code before}, or {@code null} without that bound.
+     */
+    public LocalDate lastBirthday() {
+        if (before == null) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(before), ZoneId.systemDefault()).toLocalDate();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public Profession getProfession() {
+        return profession;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public Integer getMinExperience() {
+        return minExperience;
+    }
+
+    public Integer getMaxExperience() {
+        return maxExperience;
+    }
+
+    public Integer getMinLevel() {
+        return minLevel;
+    }
+
+    public Integer getMaxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PlayerFilter)) {
+            return false;
+        }
+        PlayerFilter other = (PlayerFilter) o;
+        return name.equals(other.name) && title.equals(other.title) && race == other.race
+                && profession == other.profession && Objects.equals(after, other.after)
+                && Objects.equals(before, other.before) && Objects.equals(banned, other.banned)
+                && Objects.equals(minExperience, other.minExperience)
+                && Objects.equals(maxExperience, other.maxExperience) && Objects.equals(minLevel, other.minLevel)
+                && Objects.equals(maxLevel, other.maxLevel);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, title, race, profession, after, before, banned, minExperience, maxExperience,
+                minLevel, maxLevel);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner conditions = new StringJoiner(" and ", "[", "]").setEmptyValue("[all]");
+        if (!name.isEmpty()) {
+            conditions.add("name ~ '" + name + "'");
+        }
+        if (!title.isEmpty()) {
+            conditions.add("title ~ '" + title + "'");
+        }
+        if (race != null) {
+            conditions.add("race = " + race);
+        }
+        if (profession != null) {
+            conditions.add("profession = " + profession);
+        }
+        if (after != null || before != null) {
+            conditions.add("birthday " + range(firstBirthday(), lastBirthday()));
+        }
+        if (banned != null) {
+            conditions.add("banned = " + banned);
+        }
+        if (minExperience != null || maxExperience != null) {
+            conditions.add("experience " + range(minExperience, maxExperience));
+        }
+        if (minLevel != null || maxLevel != null) {
+            conditions.add("level " + range(minLevel, maxLevel));
+        }
+        return conditions.toString();
+    }
+
+    private static String range(Object from, Object to) {
+        return (from == null ? "" : from) + ".." + (to == null ? "" : to);
+    }
+
+    private static String substring(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,38 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+/**
+ * One requested id of a batch lookup with the player found for it, or {@code found == false} when there is none.
+ */
+public final class PlayerLookup {
+    private final Long id;
+    private final boolean found;
+    private final Player player;
+
+    private PlayerLookup(Long id, boolean found, Player player) {
+        this.id = id;
+        this.found = found;
+        this.player = player;
+    }
+
+    public static PlayerLookup found(Player player) {
+        return new PlayerLookup(player.getId(), true, player);
+    }
+
+    public static PlayerLookup missing(Long id) {
+        return new PlayerLookup(id, false, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+}
@@ -0,0 +1,228 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.metrics.MetricsRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * Filters and orders loaded players in memory. The list is cut into segments of {@code segmentSize} players; each
+ * segment is filtered and keeps only its first {@code limit} matches in order, and the sorted segments are then
+ * merged k-way until {@code limit} players are out. Segments run on a dedicated fork-join pool when the estimated
+ * work (players times active filters) reaches {@code parallelThreshold}, and on the calling thread below it.
+ */
+@Component
+public class PlayerScan implements DisposableBean {
+    private final ForkJoinPool pool;
+    private final int segmentSize;
+    private final long parallelThreshold;
+    private final MetricsRegistry metricsRegistry;
+
+    public PlayerScan(@Value("${game.scan.parallelism}") int parallelism,
+                      @Value("${game.scan.segment-size}") int segmentSize,
+                      @Value("${game.scan.parallel-threshold}") long parallelThreshold,
+                      MetricsRegistry metricsRegistry) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("player-scan-" + thread.getPoolIndex());
+                    thread.setDaemon(true);
+                    return thread;
+                }, null, false);
+        this.segmentSize = Math.max(1, segmentSize);
+        this.parallelThreshold = parallelThreshold;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * Players in the order of {@link PlayerOrder}, ties broken by id as the database would.
+     */
+    public static Comparator<Player> comparator(PlayerOrder order) {
+        Comparator<Player> byField;
+        switch (order) {
+            case NAME:
+                byField = Comparator.comparing(Player::getName);
+                break;
+            case EXPERIENCE:
+                byField = Comparator.comparing(Player::getExperience);
+                break;
+            case BIRTHDAY:
+                byField = Comparator.comparing(Player::getBirthday);
+                break;
+            case LEVEL:
+                byField = Comparator.comparing(Player::getLevel);
+                break;
+            default:
+                return Comparator.comparing(Player::getId);
+        }
+        return byField.thenComparing(Player::getId);
+    }
+
+    /**
+     * @param filters conditions a player has to meet, all of them
+     * @param limit   how many of the first matching players to return; 0 only counts them
+     * @return the number of matching players and the first {@code limit} of them in {@code order}
+     */
+    public Matches scan(List<Player> players, List<Predicate<Player>> filters, Comparator<Player> order, int limit) {
+        int segments = (players.size() + segmentSize - 1) / segmentSize;
+        long work = (long) players.size() * Math.max(1, filters.size());
+        if (segments <= 1 || pool.getParallelism() == 1 || work < parallelThreshold) {
+            record("sequential");
+            Segment only = new Segment(players, filters, order, limit);
+            only.run();
+            return new Matches(only.matched, Collections.unmodifiableList(only.first));
+        }
+        record("parallel");
+        List<Callable<Segment>> tasks = new ArrayList<>(segments);
+        for (int from = 0; from < players.size(); from += segmentSize) {
+            List<Player> slice = players.subList(from, Math.min(from + segmentSize, players.size()));
+            tasks.add(() -> {
+                Segment segment = new Segment(slice, filters, order, limit);
+                segment.run();
+                return segment;
+            });
+        }
+        List<Segment> done = new ArrayList<>(segments);
+        try {
+            for (Future<Segment> future : pool.invokeAll(tasks)) {
+                done.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while scanning players");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        int matched = 0;
+        for (Segment segment : done) {
+            matched += segment.matched;
+        }
+        return new Matches(matched, Collections.unmodifiableList(merge(done, order, limit)));
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    private void record(String mode) {
+        metricsRegistry.counter("player_scan_total", "In-memory player scans by execution mode", "mode", mode)
+                .increment();
+    }
+
+    private static List<Player> merge(List<Segment> segments, Comparator<Player> order, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>((left, right) -> order.compare(left.player, right.player));
+        for (Segment segment : segments) {
+            Iterator<Player> iterator = segment.first.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator));
+            }
+        }
+        List<Player> merged = new ArrayList<>(Math.min(limit, 1024));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head head = heads.poll();
+            merged.add(head.player);
+            if (head.iterator.hasNext()) {
+                head.player = head.iterator.next();
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * The outcome of a scan, shared by everybody who asked for the same query.
+     */
+    public static final class Matches {
+        private final int matched;
+        private final List<Player> first;
+
+        private Matches(int matched, List<Player> first) {
+            this.matched = matched;
+            this.first = first;
+        }
+
+        public int getMatched() {
+            return matched;
+        }
+
+        public List<Player> getFirst() {
+            return first;
+        }
+    }
+
+    private static final class Segment implements Runnable {
+        private final List<Player> players;
+        private final List<Predicate<Player>> filters;
+        private final Comparator<Player> order;
+        private final int limit;
+        private int matched;
+        private List<Player> first;
+
+        private Segment(List<Player> players, List<Predicate<Player>> filters, Comparator<Player> order,
+                        int limit) {
+            this.players = players;
+            this.filters = filters;
+            this.order = order;
+            this.limit = limit;
+        }
+
+        // Only the first limit matches are kept, in a heap whose root is the last of them.
+        @Override
+        public void run() {
+            PriorityQueue<Player> kept = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+            for (Player player : players) {
+                if (!matches(player)) {
+                    continue;
+                }
+                matched++;
+                if (kept.size() < limit) {
+                    kept.add(player);
+                } else if (limit > 0 && order.compare(player, kept.peek()) < 0) {
+                    kept.poll();
+                    kept.add(player);
+                }
+            }
+            first = new ArrayList<>(kept);
+            first.sort(order);
+        }
+
+        private boolean matches(Player player) {
+            for (Predicate<Player> filter : filters) {
+                if (!filter.test(player)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Head {
+        private final Iterator<Player> iterator;
+        private Player player;
+
+        private Head(Iterator<Player> iterator) {
+            this.iterator = iterator;
+            this.player = iterator.next();
+        }
+    }
+}
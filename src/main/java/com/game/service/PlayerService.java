@@ -1,108 +1,438 @@
 package com.game.service;
 
+import com.game.controller.BulkAction;
 import com.game.controller.PlayerOrder;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.game.events.PlayerEventStream;
+import com.game.index.CountEstimate;
+import com.game.index.Leaderboard;
+import com.game.index.Matchmaking;
+import com.game.index.PlayerNearCache;
+import com.game.index.PlayerRank;
+import com.game.index.PlayerSample;
+import com.game.index.PlayerStatsCube;
+import com.game.index.StatsCell;
+import com.game.journal.PlayerJournal;
+import com.game.metrics.MetricsRegistry;
 import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
-public class PlayerService {
+public class PlayerService implements InitializingBean {
     private final PlayerRepository playerRepository;
+    private final MetricsRegistry metricsRegistry;
+    private final Leaderboard leaderboard;
+    private final Matchmaking matchmaking;
+    private final PlayerStatsCube statsCube;
+    private final PlayerSample sample;
+    private final PlayerEventStream eventStream;
+    private final QueryCoalescer coalescer;
+    private final LastKnownGood lastKnownGood;
+    private final PlayerScan scan;
+    private final QueryPlanner planner;
+    private final PlayerNearCache nearCache;
+    private final TransactionTemplate transactions;
+    private final UpdateLanes lanes;
+    private final int optimisticRetries;
+    private final boolean softDelete;
+    private final int bulkChunkSize;
+    private final List<PlayerChangeListener> listeners;
+    private final PlayerJournal journal;
 
     @Autowired
-    public PlayerService(PlayerRepository playerRepository) {
+    public PlayerService(PlayerRepository playerRepository, MetricsRegistry metricsRegistry, Leaderboard leaderboard,
+                         Matchmaking matchmaking,
+                         PlayerStatsCube statsCube, PlayerSample sample, PlayerEventStream eventStream,
+                         QueryCoalescer coalescer, LastKnownGood lastKnownGood, PlayerScan scan, QueryPlanner planner,
+                         PlayerNearCache nearCache, PlatformTransactionManager transactionManager,
+                         @Value("${game.bulk.chunk-size}") int bulkChunkSize, UpdateLanes lanes,
+                         @Value("${game.lanes.optimistic-retries}") int optimisticRetries,
+                         @Value("${game.soft-delete.enabled}") boolean softDelete,
+                         List<PlayerChangeListener> listeners, PlayerJournal journal) {
         this.playerRepository = playerRepository;
+        this.metricsRegistry = metricsRegistry;
+        this.leaderboard = leaderboard;
+        this.matchmaking = matchmaking;
+        this.statsCube = statsCube;
+        this.sample = sample;
+        this.eventStream = eventStream;
+        this.coalescer = coalescer;
+        this.lastKnownGood = lastKnownGood;
+        this.scan = scan;
+        this.planner = planner;
+        this.nearCache = nearCache;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.bulkChunkSize = bulkChunkSize;
+        this.lanes = lanes;
+        this.optimisticRetries = optimisticRetries;
+        this.softDelete = softDelete;
+        this.listeners = listeners;
+        this.journal = journal;
     }
 
-    public List<Player> getAllPlayers(String name, String title, Race race, Profession profession, Long after,
-                                      Long before, Boolean banned, Integer minExperience, Integer maxExperience,
-                                      Integer minLevel, Integer maxLevel, Integer pageNo, Integer pageSize,
-                                      PlayerOrder order) {
+    @Override
+    public void afterPropertiesSet() {
+        reloadListeners();
+    }
+
+    public void reloadListeners() {
+        List<Player> players = playerRepository.findAll();
+        listeners.forEach(listener -> listener.reload(players));
+    }
+
+    public QueryResult<List<Player>> getAllPlayers(String name, String title, Race race, Profession profession,
+                                                   Long after, Long before, Boolean banned, Integer minExperience,
+                                                   Integer maxExperience, Integer minLevel, Integer maxLevel,
+                                                   Integer pageNo, Integer pageSize, PlayerOrder order) {
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned, minExperience,
+                maxExperience, minLevel, maxLevel);
         Pageable paging = PageRequest.of(pageNo, pageSize);
-        int start = (int) paging.getOffset();
-        int end = (int) (paging.getOffset() + paging.getPageSize());
-        List<Player> players = getPlayersFiltered(name, title, race, profession, after, before, banned,
-                minExperience, maxExperience, minLevel, maxLevel, order);
-        Page<Player> pagedResult = new PageImpl<>(players.subList(start, (Math.min(end, players.size()))),
-                paging, players.size());
-        if (pagedResult.hasContent()) {
-            return pagedResult.getContent();
-        } else {
-            return new ArrayList<>();
+        List<?> key = Arrays.asList(filter, order, paging);
+        return lastKnownGood.serve("filter", key, () -> coalescer.coalesce("filter", key,
+                () -> evaluatePage(filter, order, paging))).map(pagedResult -> {
+                    if (pagedResult instanceof Page) {
+                        recordRows("matched", (int) ((Page<Player>) pagedResult).getTotalElements());
+                    }
+                    recordRows("returned", pagedResult.getNumberOfElements());
+                    if (pagedResult.hasContent()) {
+                        return pagedResult.getContent();
+                    } else {
+                        return new ArrayList<>();
+                    }
+                });
+    }
+
+    public QueryResult<Integer> count(String name, String title, Race race, Profession profession, Long after,
+                                      Long before, Boolean banned, Integer minExperience, Integer maxExperience,
+                                      Integer minLevel, Integer maxLevel) {
+        if (name.isEmpty() && title.isEmpty() && after == null && before == null
+                && minExperience == null && maxExperience == null) {
+            return QueryResult.fresh(statsCube.count(race, profession, banned, minLevel, maxLevel));
         }
+        PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned, minExperience,
+                maxExperience, minLevel, maxLevel);
+        List<?> key = Collections.singletonList(filter);
+        return lastKnownGood.serve("count", key, () -> coalescer.coalesce("count", key,
+                () -> evaluateCount(filter)));
     }
 
-    public Integer count(String name, String title, Race race, Profession profession, Long after, Long before,
-                         Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
-                         Integer maxLevel) {
-        return getPlayersFiltered(name, title, race, profession, after, before, banned, minExperience,
-                maxExperience, minLevel, maxLevel, PlayerOrder.valueOf("ID")).size();
+    // Estimated from the player sample, which takes the same time at any table size; the statistics cube is exact
+    // and as fast, and filters too selective for the sample to estimate are counted exactly.
+    public QueryResult<CountEstimate> countApproximately(String name, String title, Race race, Profession profession,
+                                                         Long after, Long before, Boolean banned,
+                                                         Integer minExperience, Integer maxExperience,
+                                                         Integer minLevel, Integer maxLevel) {
+        if (!name.isEmpty() || !title.isEmpty() || after != null || before != null
+                || minExperience != null || maxExperience != null) {
+            PlayerFilter filter = new PlayerFilter(name, title, race, profession, after, before, banned,
+                    minExperience, maxExperience, minLevel, maxLevel);
+            Optional<CountEstimate> estimate = sample.estimate(filter.predicates());
+            if (estimate.isPresent()) {
+                return QueryResult.fresh(estimate.get());
+            }
+        }
+        return count(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel,
+                maxLevel).map(CountEstimate::exact);
     }
 
     public Optional<Player> savePlayer(Player player) {
         if (checkNewPlayer(player)) {
             return Optional.empty();
         }
-        player.setLevel((int) ((Math.sqrt(2500 + 200 * player.getExperience()) - 50) / 100));
-        player.setUntilNextLevel(50 * (player.getLevel() + 1) * (player.getLevel() + 2) - player.getExperience());
-        return Optional.of(playerRepository.save(player));
+        updateLevel(player);
+        Player saved;
+        // The save commits at once, before the listeners hear of it.
+        statsCube.beginChange();
+        try {
+            saved = playerRepository.save(player);
+            Player current = new Player(saved);
+            listeners.forEach(listener -> listener.onSaved(null, current));
+        } finally {
+            statsCube.endChange();
+        }
+        awaitJournal();
+        return Optional.of(saved);
     }
 
     public Optional<Player> findById(Long id) {
-        return playerRepository.findById(id);
+        return nearCache.get(id, this::load);
+    }
+
+    // In request order, repeated ids included; ids the near-cache cannot answer are read by one IN query.
+    public List<PlayerLookup> findAllById(List<Long> ids) {
+        Map<Long, Optional<Player>> found = nearCache.getAll(ids, playerRepository::findAllById);
+        return ids.stream()
+                .map(id -> found.get(id).map(PlayerLookup::found).orElseGet(() -> PlayerLookup.missing(id)))
+                .collect(Collectors.toList());
+    }
+
+    public SseEmitter subscribeToChanges() {
+        return eventStream.subscribe();
+    }
+
+    public List<StatsCell> getStats(Integer levelBucket) {
+        return statsCube.cells(levelBucket);
+    }
+
+    public List<Player> getLeaderboard(Integer top, Race race, Profession profession) {
+        return leaderboard.top(top, race, profession);
+    }
+
+    public Optional<PlayerRank> getRank(Long id) {
+        return leaderboard.rank(id);
+    }
+
+    public Optional<List<Player>> getMatches(Long id, Integer count, Race race, Profession profession) {
+        return matchmaking.matches(id, count, race, profession);
     }
 
+    // Updates and deletes of one player run one at a time in its update lane, each in a transaction of its own. The
+    // version check still catches writers that bypass the lanes (other instances, bulk operations): the mutation is
+    // then retried on a fresh read. The journal sync is awaited outside the lane, so that it does not hold up the
+    // next write of the player.
     public Optional<Player> updatePlayer(Long id, Player player) {
-        Player oldPlayer;
-        if (!playerRepository.existsById(id)) {
+        Optional<Player> updated = lanes.run(id, () -> retryOnConflict(() ->
+                transactions.execute(status -> update(id, player))));
+        awaitJournal();
+        return updated;
+    }
+
+    public Boolean deleteById(Long id) {
+        Boolean deleted = lanes.run(id, () -> retryOnConflict(() -> transactions.execute(status -> delete(id))));
+        awaitJournal();
+        return deleted;
+    }
+
+    private Optional<Player> update(Long id, Player player) {
+        Optional<Player> oldPlayer = load(id);
+        if (!oldPlayer.isPresent()) {
             return Optional.empty();
-        } else {
-            player.setId(Objects.requireNonNull(playerRepository.findById(id).orElse(null)).getId());
-            oldPlayer = findById(player.getId()).orElse(null);
-            player = updateNewPlayer(oldPlayer, player);
         }
-//        System.out.println(player.getId());
+        Player previous = new Player(oldPlayer.get());
+        Player updated = updateNewPlayer(oldPlayer.get(), player);
+        updateLevel(updated);
+        Player saved = playerRepository.save(updated);
+        afterCommit(() -> listeners.forEach(listener -> listener.onSaved(previous, new Player(saved))));
+        return Optional.of(saved);
+    }
+
+    // A soft delete is a single-row UPDATE whenever the near-cache knows the player; the purger removes the row later.
+    private Boolean delete(Long id) {
+        Optional<Player> player = softDelete ? nearCache.get(id, this::load) : load(id);
+        if (!player.isPresent()) {
+            return false;
+        }
+        Player previous = new Player(player.get());
+        if (!softDelete) {
+            playerRepository.delete(player.get());
+        } else if (playerRepository.markDeleted(Collections.singletonList(id)) == 0) {
+            return false;
+        }
+        afterCommit(() -> listeners.forEach(listener -> listener.onDeleted(previous)));
+        return true;
+    }
+
+    // Loads by id bypass the tombstone filter of queries.
+    private Optional<Player> load(long id) {
+        return playerRepository.findById(id).filter(player -> !player.isDeleted());
+    }
+
+    private <V> V retryOnConflict(Supplier<V> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (OptimisticLockingFailureException e) {
+                metricsRegistry.counter("player_update_conflicts_total",
+                        "Player writes that found the row changed since it was read").increment();
+                if (attempt > optimisticRetries) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies {@code action} to every player matching the filter and returns how many were changed. Matches are
+     * taken by ascending id in chunks of {@code game.bulk.chunk-size}, each read and changed by a few set-based
+     * statements in its own transaction, so no transaction holds its locks for long however many players match.
+     * The chunk is read with row locks, so no other writer can change its players before the statements do.
+     */
+    public int applyToAll(BulkAction action, Integer delta, String name, String title, Race race,
+                          Profession profession, Long after, Long before, Boolean banned, Integer minExperience,
+                          Integer maxExperience, Integer minLevel, Integer maxLevel) {
+        Specification<Player> specification = new PlayerFilter(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel).specification();
+        Pageable chunk = PageRequest.of(0, bulkChunkSize, Sort.by("id"));
+        AtomicInteger changed = new AtomicInteger();
+        List<Player> players;
+        long last = 0;
+        do {
+            long from = last;
+            players = transactions.execute(status -> {
+                List<Player> matched = playerRepository.findSliceForUpdate(specification.and((root, query, builder) ->
+                        builder.greaterThan(root.get("id"), from)), chunk).getContent();
+                changed.addAndGet(apply(action, delta, matched));
+                return matched;
+            });
+            if (!players.isEmpty()) {
+                last = players.get(players.size() - 1).getId();
+            }
+        } while (players.size() == bulkChunkSize);
+        metricsRegistry.counter("player_bulk_changes_total", "Players changed by bulk operations",
+                "action", action.name().toLowerCase()).add(changed.get());
+        awaitJournal();
+        return changed.get();
+    }
+
+    // Listeners get every player's new state computed the way the statements compute it, after the chunk commits.
+    // That is exact because the players are locked from the read on: the statements change each of them, from the
+    // state that was read.
+    private int apply(BulkAction action, Integer delta, List<Player> players) {
+        if (players.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = players.stream().map(Player::getId).collect(Collectors.toList());
+        List<Player> previous = players.stream().map(Player::new).collect(Collectors.toList());
+        int changed;
+        switch (action) {
+            case DELETE:
+                changed = softDelete ? playerRepository.markDeleted(ids) : playerRepository.deleteByIds(ids);
+                afterCommit(() -> previous.forEach(player ->
+                        listeners.forEach(listener -> listener.onDeleted(player))));
+                return changed;
+            case BAN:
+            case UNBAN:
+                changed = playerRepository.updateBanned(ids, action == BulkAction.BAN);
+                break;
+            default:
+                changed = playerRepository.addExperience(ids, delta);
+                playerRepository.updateLevels(ids);
+                playerRepository.updateUntilNextLevel(ids);
+        }
+        List<Player> current = previous.stream().map(player -> {
+            Player updated = new Player(player);
+            updated.setVersion(player.getVersion() + 1);
+            if (action == BulkAction.GRANT_EXPERIENCE) {
+                updated.setExperience(Math.max(0, Math.min(10_000_000, player.getExperience() + delta)));
+                updateLevel(updated);
+            } else {
+                updated.setBanned(action == BulkAction.BAN);
+            }
+            return updated;
+        }).collect(Collectors.toList());
+        afterCommit(() -> {
+            for (int i = 0; i < previous.size(); i++) {
+                Player before = previous.get(i);
+                Player after = current.get(i);
+                listeners.forEach(listener -> listener.onSaved(before, after));
+            }
+        });
+        return changed;
+    }
+
+    private static void updateLevel(Player player) {
         player.setLevel((int) ((Math.sqrt(2500 + 200 * player.getExperience()) - 50) / 100));
         player.setUntilNextLevel(50 * (player.getLevel() + 1) * (player.getLevel() + 2) - player.getExperience());
-        return Optional.of(playerRepository.save(player));
     }
 
-    public Boolean deleteById(Long id) {
-        if (playerRepository.existsById(id)) {
-            playerRepository.deleteById(id);
-            return true;
-        }
-        return false;
-    }
-
-    private List<Player> getPlayersFiltered(String name, String title, Race race, Profession profession, Long after,
-                                            Long before, Boolean banned, Integer minExperience, Integer maxExperience,
-                                            Integer minLevel, Integer maxLevel, PlayerOrder order) {
-        return playerRepository
-                .findAll(Sort.by(order.getFieldName()))
-                .stream()
-                .filter(player -> player.getName().contains(name))
-                .filter(player -> player.getTitle().contains(title))
-                .filter(player -> race == null || player.getRace().equals(race))
-                .filter(player -> profession == null || player.getProfession().equals(profession))
-                .filter(player -> after == null || player.getBirthday().getTime() >= after)
-                .filter(player -> before == null || player.getBirthday().getTime() <= before)
-                .filter(player -> banned == null || player.getBanned().equals(banned))
-                .filter(player -> minExperience == null || player.getExperience() >= minExperience)
-                .filter(player -> maxExperience == null || player.getExperience() <= maxExperience)
-                .filter(player -> minLevel == null || player.getLevel() >= minLevel)
-                .filter(player -> maxLevel == null || player.getLevel() <= maxLevel)
-                .collect(Collectors.toList());
+    // A change is answered only once the journal has synced it (or failed to), so the journal never misses a change
+    // a client was told about, short of a crash between the commit and the sync.
+    private void awaitJournal() {
+        try {
+            journal.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        // From just before the commit until the listeners have run, the stats cube holds off reconciling, which
+        // could otherwise find the change in the database and then have the listeners count it once more.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            private boolean begun;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                statsCube.beginChange();
+                begun = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (begun) {
+                    statsCube.endChange();
+                }
+            }
+        });
+    }
+
+    // Identical concurrent queries share one evaluation; while the database is unavailable the query's
+    // last-known-good result is served instead. The planner decides whether SQL or a scan of all players answers it;
+    // only the scan learns how many players matched.
+    private Slice<Player> evaluatePage(PlayerFilter filter, PlayerOrder order, Pageable paging) {
+        if (planner.plan("filter", filter, order, paging).getStrategy() == QueryPlanner.Strategy.PUSHDOWN) {
+            Sort sort = order == PlayerOrder.ID ? Sort.by("id") : Sort.by(order.getFieldName()).and(Sort.by("id"));
+            Slice<Player> slice = playerRepository.findSlice(filter.specification(),
+                    PageRequest.of(paging.getPageNumber(), paging.getPageSize(), sort));
+            recordRows("loaded", slice.getNumberOfElements());
+            return slice;
+        }
+        int start = (int) paging.getOffset();
+        PlayerScan.Matches matches = scan.scan(loadAll(), filter.predicates(), PlayerScan.comparator(order),
+                start + paging.getPageSize());
+        List<Player> first = matches.getFirst();
+        return new PageImpl<>(first.subList(Math.min(start, first.size()), first.size()), paging,
+                matches.getMatched());
+    }
+
+    private Integer evaluateCount(PlayerFilter filter) {
+        if (planner.plan("count", filter, PlayerOrder.ID, null).getStrategy() == QueryPlanner.Strategy.PUSHDOWN) {
+            return Math.toIntExact(playerRepository.count(filter.specification()));
+        }
+        return scan.scan(loadAll(), filter.predicates(), PlayerScan.comparator(PlayerOrder.ID), 0).getMatched();
+    }
+
+    private List<Player> loadAll() {
+        List<Player> loaded = playerRepository.findAll();
+        recordRows("loaded", loaded.size());
+        return loaded;
+    }
+
+    private void recordRows(String stage, int rows) {
+        metricsRegistry.histogram("player_query_rows", "Players loaded, matched and returned per query",
+                MetricsRegistry.ROW_BUCKETS, "stage", stage).observe(rows);
     }
 
     private Boolean checkNewPlayer(Player player) {
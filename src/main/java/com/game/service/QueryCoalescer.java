@@ -0,0 +1,140 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.metrics.MetricsRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for read queries: while one caller evaluates a query, identical calls wait for its result instead
+ * of running their own. A waiting caller gives up after the timeout or when its thread is interrupted without
+ * disturbing the others; if the evaluating caller is interrupted, the waiting ones start over. Every change to the
+ * player table detaches the running evaluations, so nobody who arrives after a write gets a result read before it.
+ */
+@Component
+public class QueryCoalescer implements PlayerChangeListener {
+    private static final Object ABANDONED = new Object();
+
+    private final Map<List<?>, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final long waitTimeoutMs;
+    private final MetricsRegistry metricsRegistry;
+
+    public QueryCoalescer(@Value("${game.coalescing.wait-timeout-ms}") long waitTimeoutMs,
+                          MetricsRegistry metricsRegistry) {
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.metricsRegistry = metricsRegistry;
+        metricsRegistry.gauge("player_query_flights", "Query evaluations other callers can currently join", "gauge",
+                flights::size);
+        metricsRegistry.gauge("player_query_coalescing_ratio",
+                "Share of query calls since start that were answered by another call's evaluation", "gauge",
+                () -> {
+                    double shared = followers.sum();
+                    return shared == 0 ? 0 : shared / (shared + leaders.sum());
+                });
+    }
+
+    /**
+     * @param key everything the result depends on, already normalized; compared with {@code equals}
+     * @throws QueryTimeoutException when the result of a running evaluation did not arrive in time
+     * @throws CancellationException when the calling thread was interrupted while waiting
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V coalesce(String query, List<?> key, Supplier<V> evaluation) {
+        List<?> flightKey = Arrays.asList(query, key);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        while (true) {
+            CompletableFuture<Object> flight = new CompletableFuture<>();
+            CompletableFuture<Object> running = flights.putIfAbsent(flightKey, flight);
+            if (running == null) {
+                return lead(query, flightKey, flight, evaluation);
+            }
+            Object result = follow(query, running, deadline);
+            if (result != ABANDONED) {
+                return (V) result;
+            }
+        }
+    }
+
+    private <V> V lead(String query, List<?> flightKey, CompletableFuture<Object> flight, Supplier<V> evaluation) {
+        record(query, "leader");
+        V result;
+        try {
+            result = evaluation.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(flightKey, flight);
+            if (Thread.currentThread().isInterrupted()) {
+                flight.complete(ABANDONED);
+            } else {
+                flight.completeExceptionally(e);
+            }
+            throw e;
+        }
+        flights.remove(flightKey, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    private Object follow(String query, CompletableFuture<Object> flight, long deadline) {
+        Object result;
+        try {
+            result = flight.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            metricsRegistry.counter("player_query_coalesce_timeouts_total",
+                    "Callers that stopped waiting for a shared evaluation", "query", query).increment();
+            throw new QueryTimeoutException(query, waitTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + query);
+        } catch (ExecutionException e) {
+            record(query, "follower");
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (result != ABANDONED) {
+            record(query, "follower");
+        }
+        return result;
+    }
+
+    // The ratio over a window is rate(role="follower") / rate(all roles).
+    private void record(String query, String role) {
+        ("leader".equals(role) ? leaders : followers).increment();
+        metricsRegistry.counter("player_query_coalesced_total",
+                "Query calls that evaluated (leader) or shared another call's evaluation (follower)",
+                "query", query, "role", role).increment();
+    }
+
+    @Override
+    public void reload(List<Player> players) {
+        flights.clear();
+    }
+
+    @Override
+    public void onSaved(Player previous, Player current) {
+        flights.clear();
+    }
+
+    @Override
+    public void onDeleted(Player player) {
+        flights.clear();
+    }
+}
@@ -0,0 +1,244 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.index.ColumnStatistics;
+import com.game.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses how a player query runs: pushed down to SQL (a single page or count statement) or as an in-memory scan
+ * over every loaded player. Both are costed in units of one row read by the database, from the
+ * {@link ColumnStatistics} selectivity of every condition (taken as independent) and the access paths the player
+ * indexes offer; the cheaper plan wins and is logged at debug level.
+ */
+@Component
+public class QueryPlanner {
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanner.class);
+
+    // The player indexes: equality columns first, a range column ends the usable prefix.
+    private static final List<Index> INDEXES = Arrays.asList(
+            new Index("idx_player_banned_race_profession_level",
+                    Column.BANNED, Column.RACE, Column.PROFESSION, Column.LEVEL),
+            new Index("idx_player_race_profession_experience", Column.RACE, Column.PROFESSION, Column.EXPERIENCE),
+            new Index("idx_player_experience", Column.EXPERIENCE),
+            new Index("idx_player_birthday", Column.BIRTHDAY),
+            new Index("idx_player_level", Column.LEVEL),
+            new Index("idx_player_name", Column.NAME),
+            new Index("primary", Column.ID));
+
+    private final ColumnStatistics statistics;
+    private final MetricsRegistry metricsRegistry;
+    private final double statementCost;
+    private final double indexRowCost;
+    private final double substringCost;
+    private final double loadRowCost;
+    private final double memoryRowCost;
+    private final double sortRowCost;
+    private final boolean binaryCollation;
+
+    public QueryPlanner(ColumnStatistics statistics, MetricsRegistry metricsRegistry,
+                        @Value("${game.planner.statement-cost}") double statementCost,
+                        @Value("${game.planner.index-row-cost}") double indexRowCost,
+                        @Value("${game.planner.substring-cost}") double substringCost,
+                        @Value("${game.planner.load-row-cost}") double loadRowCost,
+                        @Value("${game.planner.memory-row-cost}") double memoryRowCost,
+                        @Value("${game.planner.sort-row-cost}") double sortRowCost,
+                        @Value("${game.planner.binary-collation}") boolean binaryCollation) {
+        this.statistics = statistics;
+        this.metricsRegistry = metricsRegistry;
+        this.statementCost = statementCost;
+        this.indexRowCost = indexRowCost;
+        this.substringCost = substringCost;
+        this.loadRowCost = loadRowCost;
+        this.memoryRowCost = memoryRowCost;
+        this.sortRowCost = sortRowCost;
+        this.binaryCollation = binaryCollation;
+    }
+
+    /**
+     * @param page the requested page, or {@code null} when only the number of matching players is wanted
+     */
+    public Plan plan(String query, PlayerFilter filter, PlayerOrder order, Pageable page) {
+        double rows = statistics.rows();
+        Map<Column, Double> selectivity = selectivity(filter);
+        double matching = selectivity.values().stream().reduce(1.0, (left, right) -> left * right);
+        double matched = rows * matching;
+        int substrings = (filter.getName().isEmpty() ? 0 : 1) + (filter.getTitle().isEmpty() ? 0 : 1);
+
+        // SQL reads the rows of the cheapest access path and tests the substrings on each of them.
+        String accessPath = "full scan";
+        double accessCost = rows * (1 + substrings * substringCost);
+        for (Index index : INDEXES) {
+            double read = rows * index.prefixSelectivity(selectivity);
+            double cost = read * (indexRowCost + substrings * substringCost);
+            if (read < rows && cost < accessCost) {
+                accessPath = index.name;
+                accessCost = cost;
+            }
+        }
+
+        Plan pushdown;
+        Plan scan;
+        double loadAll = statementCost + rows * (1 + loadRowCost) + rows * selectivity.size() * memoryRowCost;
+        if (page == null) {
+            pushdown = new Plan(Strategy.PUSHDOWN, statementCost + accessCost, matched, accessPath);
+            scan = new Plan(Strategy.SCAN, loadAll, matched, "load all");
+        } else {
+            double offset = page.getOffset();
+            double limit = offset + page.getPageSize() + 1;
+            // Pages come from the cheapest access path plus sorting what matched, or from walking the index on the
+            // order column until limit players matched.
+            String pagePath = accessPath + ", sort";
+            double pageCost = accessCost + sortCost(matched, matched);
+            double walked = matching > 0 ? Math.min(rows, limit / matching) : rows;
+            double ordered = walked * (indexRowCost + substrings * substringCost);
+            if (ordered < pageCost) {
+                pagePath = INDEXES.stream().filter(index -> index.columns[0] == Column.of(order))
+                        .findFirst().map(index -> index.name).orElse("primary") + " in order";
+                pageCost = ordered;
+            }
+            double returned = Math.max(0, Math.min(page.getPageSize() + 1, matched - offset));
+            pushdown = new Plan(Strategy.PUSHDOWN, statementCost + pageCost + returned * loadRowCost, matched,
+                    pagePath);
+            scan = new Plan(Strategy.SCAN, loadAll + sortCost(matched, limit), matched, "load all, top " + limit);
+        }
+        // Substrings and name order follow the column collation in SQL but case-sensitive String methods in memory, so
+        // unless the collation is binary such queries always run in SQL: the rows returned must not depend on the plan.
+        boolean collated = !binaryCollation && (substrings > 0 || order == PlayerOrder.NAME);
+        Plan chosen = collated || pushdown.cost <= scan.cost ? pushdown : scan;
+        metricsRegistry.counter("player_query_plans_total", "Player query plans by strategy", "query", query,
+                "strategy", chosen.strategy.name().toLowerCase()).increment();
+        if (log.isDebugEnabled()) {
+            log.debug("{} {} order {} {}: {} (rejected {})", query, filter, order,
+                    page == null ? "count" : "page " + page.getPageNumber() + "x" + page.getPageSize(), chosen,
+                    chosen == pushdown ? scan : pushdown);
+        }
+        return chosen;
+    }
+
+    // Keeping the first limit of n players costs n log(limit).
+    private double sortCost(double rows, double limit) {
+        return rows * (Math.log(Math.max(2, Math.min(rows, limit))) / Math.log(2)) * sortRowCost;
+    }
+
+    private Map<Column, Double> selectivity(PlayerFilter filter) {
+        Map<Column, Double> selectivity = new EnumMap<>(Column.class);
+        if (!filter.getName().isEmpty()) {
+            selectivity.put(Column.NAME, substringSelectivity(filter.getName()));
+        }
+        if (!filter.getTitle().isEmpty()) {
+            selectivity.put(Column.TITLE, substringSelectivity(filter.getTitle()));
+        }
+        if (filter.getRace() != null) {
+            selectivity.put(Column.RACE, statistics.fraction(filter.getRace()));
+        }
+        if (filter.getProfession() != null) {
+            selectivity.put(Column.PROFESSION, statistics.fraction(filter.getProfession()));
+        }
+        if (filter.getAfter() != null || filter.getBefore() != null) {
+            selectivity.put(Column.BIRTHDAY,
+                    statistics.fractionBirthday(filter.firstBirthday(), filter.lastBirthday()));
+        }
+        if (filter.getBanned() != null) {
+            selectivity.put(Column.BANNED, statistics.fractionBanned(filter.getBanned()));
+        }
+        if (filter.getMinExperience() != null || filter.getMaxExperience() != null) {
+            selectivity.put(Column.EXPERIENCE,
+                    statistics.fractionExperience(filter.getMinExperience(), filter.getMaxExperience()));
+        }
+        if (filter.getMinLevel() != null || filter.getMaxLevel() != null) {
+            selectivity.put(Column.LEVEL, statistics.fractionLevel(filter.getMinLevel(), filter.getMaxLevel()));
+        }
+        return selectivity;
+    }
+
+    // Substrings have no statistics: every character is taken to keep a fifth of the players.
+    private static double substringSelectivity(String substring) {
+        return Math.max(0.001, Math.pow(0.2, substring.length()));
+    }
+
+    public enum Strategy {
+        PUSHDOWN, SCAN
+    }
+
+    /**
+     * The chosen way to run a query with its estimated cost and number of matching players.
+     */
+    public static final class Plan {
+        private final Strategy strategy;
+        private final double cost;
+        private final double rows;
+        private final String access;
+
+        private Plan(Strategy strategy, double cost, double rows, String access) {
+            this.strategy = strategy;
+            this.cost = cost;
+            this.rows = rows;
+            this.access = access;
+        }
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        public double getRows() {
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s via %s, cost %.0f, %.0f rows", strategy, access, cost, rows);
+        }
+    }
+
+    private enum Column {
+        ID, NAME, TITLE, RACE, PROFESSION, BIRTHDAY, BANNED, EXPERIENCE, LEVEL;
+
+        static Column of(PlayerOrder order) {
+            return valueOf(order.name());
+        }
+
+        boolean isRange() {
+            return this == BIRTHDAY || this == EXPERIENCE || this == LEVEL;
+        }
+    }
+
+    private static final class Index {
+        private final String name;
+        private final Column[] columns;
+
+        private Index(String name, Column... columns) {
+            this.name = name;
+            this.columns = columns;
+        }
+
+        // Share of the index an equality prefix, optionally ended by a range, narrows the read to.
+        double prefixSelectivity(Map<Column, Double> selectivity) {
+            double share = 1;
+            for (Column column : columns) {
+                Double condition = selectivity.get(column);
+                if (condition == null || column == Column.NAME) {
+                    break;
+                }
+                share *= condition;
+                if (column.isRange()) {
+                    break;
+                }
+            }
+            return share;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.game.service;
+
+import java.util.function.Function;
+
+/**
+ * A query answer together with how old it is: fresh from the database, or a last-known-good result served while
+ * the database is unavailable.
+ */
+public final class QueryResult<V> {
+    private final V value;
+    private final boolean stale;
+    private final long ageMs;
+
+    private QueryResult(V value, boolean stale, long ageMs) {
+        this.value = value;
+        this.stale = stale;
+        this.ageMs = ageMs;
+    }
+
+    public static <V> QueryResult<V> fresh(V value) {
+        return new QueryResult<>(value, false, 0);
+    }
+
+    public static <V> QueryResult<V> stale(V value, long ageMs) {
+        return new QueryResult<>(value, true, ageMs);
+    }
+
+    public <R> QueryResult<R> map(Function<? super V, ? extends R> mapper) {
+        return new QueryResult<>(mapper.apply(value), stale, ageMs);
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public long getAgeMs() {
+        return ageMs;
+    }
+}
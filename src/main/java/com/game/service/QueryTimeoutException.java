@@ -0,0 +1,11 @@
+package com.game.service;
+
+/**
+ * Thrown when a caller gave up waiting for a query that another caller is evaluating.
+ */
+public class QueryTimeoutException extends RuntimeException {
+
+    public QueryTimeoutException(String query, long timeoutMs) {
+        super("Query " + query + " did not complete within " + timeoutMs + " ms");
+    }
+}
@@ -0,0 +1,79 @@
+package com.game.service;
+
+import com.game.index.PlayerStatsCube;
+import com.game.metrics.MetricsRegistry;
+import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings the {@link PlayerStatsCube} back in line with the database every {@code intervalSeconds}, from one
+ * GROUP BY over the player table: counts answered from the cube would otherwise keep any drift for good, such as
+ * rows changed by another instance or by hand. A run that races with a change is skipped and the next one tries
+ * again. Runs only while the interval is positive.
+ */
+@Component
+public class StatsReconciler implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(StatsReconciler.class);
+
+    private final PlayerRepository playerRepository;
+    private final PlayerStatsCube statsCube;
+    private final MetricsRegistry.Counter corrected;
+    private final MetricsRegistry.Counter skipped;
+    private final ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stats-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StatsReconciler(PlayerRepository playerRepository, PlayerStatsCube statsCube,
+                           MetricsRegistry metricsRegistry,
+                           @Value("${game.stats.reconcile-seconds}") long intervalSeconds) {
+        this.playerRepository = playerRepository;
+        this.statsCube = statsCube;
+        this.corrected = metricsRegistry.counter("player_stats_drift_total",
+                "Players the stats cube was off by when reconciled with the database");
+        this.skipped = metricsRegistry.counter("player_stats_reconcile_skipped_total",
+                "Stats reconciliations skipped because a change raced with them");
+        if (intervalSeconds > 0) {
+            reconciler.scheduleWithFixedDelay(this::reconcileQuietly, intervalSeconds, intervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Reconciles the cube once and returns how many players it was off by, or -1 when a change raced with the run.
+     */
+    public long reconcile() {
+        long changes = statsCube.changes();
+        long drift = statsCube.reconcile(changes, playerRepository.countByCell());
+        if (drift < 0) {
+            skipped.increment();
+        } else if (drift > 0) {
+            corrected.add(drift);
+            log.warn("Player stats were off by {} players and have been reconciled with the database", drift);
+        }
+        return drift;
+    }
+
+    @Override
+    public void destroy() {
+        reconciler.shutdownNow();
+    }
+
+    // A failed run, say while the database is down, leaves the cube to the next one.
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Reconciling player stats failed", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.game.service;
+
+import com.game.metrics.MetricsRegistry;
+import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes soft-deleted players in the background, at most {@code batchSize} rows per statement and about
+ * {@code rowsPerSecond} rows a second, so that no purge holds many row locks at once or for long. Runs only while
+ * soft deletes are enabled and the rate is positive.
+ */
+@Component
+public class TombstonePurger implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(TombstonePurger.class);
+
+    private final PlayerRepository playerRepository;
+    private final int batchSize;
+    private final MetricsRegistry.Counter purged;
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tombstone-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TombstonePurger(PlayerRepository playerRepository, MetricsRegistry metricsRegistry,
+                           @Value("${game.soft-delete.enabled}") boolean enabled,
+                           @Value("${game.soft-delete.purge-batch-size}") int batchSize,
+                           @Value("${game.soft-delete.purge-rows-per-second}") double rowsPerSecond) {
+        this.playerRepository = playerRepository;
+        this.batchSize = batchSize;
+        this.purged = metricsRegistry.counter("player_tombstones_purged_total",
+                "Soft-deleted players removed for good");
+        if (enabled && rowsPerSecond > 0) {
+            long delayNanos = (long) (TimeUnit.SECONDS.toNanos(1) * batchSize / rowsPerSecond);
+            purger.scheduleWithFixedDelay(this::purgeQuietly, delayNanos, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Removes one batch of soft-deleted players and returns how many there were.
+     */
+    public int purge() {
+        int removed = playerRepository.purgeDeleted(batchSize);
+        purged.add(removed);
+        return removed;
+    }
+
+    @Override
+    public void destroy() {
+        purger.shutdownNow();
+    }
+
+    // A failed batch, say while the database is down, leaves its tombstones to the next run.
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("Purging soft-deleted players failed", e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.game.service;
+
+import com.game.metrics.MetricsRegistry;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs the mutations of one player one at a time, in arrival order, while mutations of players in other lanes run
+ * in parallel. Every id maps to one of a fixed number of lanes; a lane is a lock-free queue and a flag saying whether
+ * some caller is running it. Callers queue their mutation and whoever takes the flag runs the queue in order up to
+ * its own mutation, completing the others on their behalf, then wakes the caller of the next queued mutation to take
+ * over. No caller runs more than the mutations queued ahead of its own, and none blocks on a lock.
+ * <p>
+ * A mutation run by another caller runs on that caller's thread. Its own caller's request attributes and logging
+ * context (MDC) are put in place for it there, but any other thread-bound state, such as a transaction or a security
+ * context, is the running thread's: a mutation has to open its own transaction and take everything else it needs from
+ * its closure.
+ */
+@Component
+public class UpdateLanes {
+    private final Lane[] lanes;
+    private final int mask;
+    private final MetricsRegistry.Counter handedOver;
+
+    public UpdateLanes(@Value("${game.lanes.count}") int count, MetricsRegistry metricsRegistry) {
+        int size = count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+        this.lanes = new Lane[size];
+        for (int i = 0; i < size; i++) {
+            lanes[i] = new Lane();
+        }
+        this.mask = size - 1;
+        this.handedOver = metricsRegistry.counter("player_update_lane_handovers_total",
+                "Mutations run by the caller of another mutation queued ahead of them in the same lane");
+    }
+
+    /**
+     * Runs {@code mutation} on the calling thread or on the thread of a caller ahead of it in the lane of {@code id},
+     * after every mutation queued before it there; exceptions reach the caller that queued it. The caller waits for
+     * its mutation even when interrupted, since once queued it runs regardless; the interrupt is kept for it.
+     */
+    public <V> V run(long id, Supplier<V> mutation) {
+        Lane lane = lanes[lane(id)];
+        Mutation<V> queued = new Mutation<>(mutation);
+        lane.queue.add(queued);
+        // Held back until the end: a set flag would reach the mutations run here and keep park from parking.
+        boolean interrupted = Thread.interrupted();
+        while (!queued.done) {
+            if (lane.running.compareAndSet(false, true)) {
+                try {
+                    Mutation<?> next;
+                    while (!queued.done && (next = lane.queue.poll()) != null) {
+                        next.run();
+                        if (next != queued) {
+                            handedOver.increment();
+                            LockSupport.unpark(next.caller);
+                        }
+                    }
+                } finally {
+                    lane.running.set(false);
+                    Mutation<?> head = lane.queue.peek();
+                    if (head != null) {
+                        LockSupport.unpark(head.caller);
+                    }
+                }
+            } else {
+                LockSupport.park(this);
+                interrupted |= Thread.interrupted();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return queued.result();
+    }
+
+    private int lane(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static final class Lane {
+        private final Queue<Mutation<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+    }
+
+    private static final class Mutation<V> {
+        private final Supplier<V> supplier;
+        private final Thread caller = Thread.currentThread();
+        private final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        private final Map<String, String> mdc = MDC.getCopyOfContextMap();
+        private V value;
+        private RuntimeException failure;
+        private Error error;
+        // Written last by the running thread, so a caller that sees it also sees the outcome.
+        private volatile boolean done;
+
+        private Mutation(Supplier<V> supplier) {
+            this.supplier = supplier;
+        }
+
+        private void run() {
+            boolean handedOver = caller != Thread.currentThread();
+            RequestAttributes runnerAttributes = handedOver ? RequestContextHolder.getRequestAttributes() : null;
+            Map<String, String> runnerMdc = handedOver ? MDC.getCopyOfContextMap() : null;
+            if (handedOver) {
+                bind(requestAttributes, mdc);
+            }
+            try {
+                value = supplier.get();
+            } catch (RuntimeException e) {
+                failure = e;
+            } catch (Error e) {
+                error = e;
+            } finally {
+                if (handedOver) {
+                    bind(runnerAttributes, runnerMdc);
+                }
+                done = true;
+            }
+        }
+
+        private static void bind(RequestAttributes attributes, Map<String, String> mdc) {
+            RequestContextHolder.setRequestAttributes(attributes);
+            if (mdc == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(mdc);
+            }
+        }
+
+        private V result() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.game.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.metrics.MetricsRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays representative GET requests in-process before the application takes traffic, so that the controllers,
+ * services, Hibernate and Jackson are compiled and their caches filled by the time real clients arrive. Requests
+ * are resolved through the web context's own handler mapping and conversion service, and responses are written
+ * with the JSON converter's object mapper; only the servlet container and the interceptors are left out.
+ *
+ * <p>The requests are replayed in rounds until the median round time of the last {@code window} rounds is no more
+ * than {@code tolerance} faster than that of the {@code window} before, but for at least {@code minRounds}. Hitting
+ * {@code maxRounds} or {@code maxDurationMs} ends the warm-up as well, so a slow database cannot keep the
+ * instance out of rotation for good.
+ */
+@Component
+public class WarmUp implements ApplicationListener<ContextRefreshedEvent>, DisposableBean {
+    private final List<String> requests;
+    private final int minRounds;
+    private final int maxRounds;
+    private final int window;
+    private final double tolerance;
+    private final long maxDurationMs;
+    private final MetricsRegistry metricsRegistry;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final long[] roundNanos;
+    private volatile int rounds;
+    private volatile int errors;
+    private volatile boolean ready;
+    private volatile boolean stopped;
+
+    public WarmUp(@Value("${game.warmup.requests}") String[] requests,
+                  @Value("${game.warmup.min-rounds}") int minRounds,
+                  @Value("${game.warmup.max-rounds}") int maxRounds,
+                  @Value("${game.warmup.window}") int window,
+                  @Value("${game.warmup.tolerance}") double tolerance,
+                  @Value("${game.warmup.max-duration-ms}") long maxDurationMs,
+                  MetricsRegistry metricsRegistry) {
+        this.requests = new ArrayList<>();
+        for (String request : requests) {
+            if (!request.trim().isEmpty()) {
+                this.requests.add(request.trim());
+            }
+        }
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+        this.window = Math.max(1, window);
+        this.tolerance = tolerance;
+        this.maxDurationMs = maxDurationMs;
+        this.metricsRegistry = metricsRegistry;
+        this.roundNanos = new long[2 * this.window];
+        metricsRegistry.gauge("app_ready", "Whether the warm-up is over and the instance takes traffic", "gauge",
+                () -> ready ? 1 : 0);
+        metricsRegistry.gauge("warmup_rounds", "Rounds of warm-up requests replayed so far", "gauge",
+                () -> rounds);
+        metricsRegistry.gauge("warmup_round_seconds", "Median time of the latest warm-up rounds", "gauge",
+                () -> recentMedianNanos() / 1e9);
+    }
+
+    /**
+     * Starts the warm-up once the web context (the one with the handler mapping) is refreshed.
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        if (context.getBeanNamesForType(RequestMappingHandlerMapping.class).length == 0
+                || !started.compareAndSet(false, true)) {
+            return;
+        }
+        if (requests.isEmpty() || maxRounds <= 0) {
+            ready = true;
+            return;
+        }
+        List<Replay> replays = resolve(context);
+        Thread warmUp = new Thread(() -> run(replays), "warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        ready = false;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public String status() {
+        if (ready) {
+            return String.format("ready after %d warm-up rounds (%d failed requests)", rounds, errors);
+        }
+        return String.format("warming up: %d rounds of at least %d, median round %.1f ms, %d failed requests",
+                rounds, minRounds, recentMedianNanos() / 1e6, errors);
+    }
+
+    private void run(List<Replay> replays) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        while (!stopped && rounds < maxRounds && System.nanoTime() - deadline < 0) {
+            long start = System.nanoTime();
+            for (Replay replay : replays) {
+                try {
+                    replay.perform();
+                } catch (Exception e) {
+                    errors++;
+                    metricsRegistry.counter("warmup_errors_total", "Warm-up requests that failed").increment();
+                }
+            }
+            roundNanos[rounds % roundNanos.length] = System.nanoTime() - start;
+            rounds++;
+            if (rounds >= minRounds && isStable()) {
+                break;
+            }
+        }
+        ready = !stopped;
+    }
+
+    private boolean isStable() {
+        if (rounds < roundNanos.length) {
+            return false;
+        }
+        long previous = median(rounds - 2 * window, window);
+        long recent = median(rounds - window, window);
+        return recent >= previous * (1 - tolerance);
+    }
+
+    private long recentMedianNanos() {
+        int done = rounds;
+        int count = Math.min(window, done);
+        return count == 0 ? 0 : median(done - count, count);
+    }
+
+    private long median(int from, int count) {
+        long[] sample = new long[count];
+        for (int i = 0; i < count; i++) {
+            sample[i] = roundNanos[(from + i) % roundNanos.length];
+        }
+        Arrays.sort(sample);
+        return sample[count / 2];
+    }
+
+    private List<Replay> resolve(ApplicationContext context) {
+        RequestMappingHandlerMapping handlerMapping = context.getBean(RequestMappingHandlerMapping.class);
+        ConversionService conversionService = context.getBean("mvcConversionService", ConversionService.class);
+        ObjectMapper objectMapper = context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters()
+                .stream()
+                .filter(converter -> converter instanceof MappingJackson2HttpMessageConverter)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JSON message converter to warm up"));
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        List<Replay> replays = new ArrayList<>();
+        for (String request : requests) {
+            UriComponents uri = UriComponentsBuilder.fromUriString(request).build();
+            String path = uri.getPath() == null ? "" : uri.getPath();
+            Comparator<String> specificity = pathMatcher.getPatternComparator(path);
+            Map.Entry<RequestMappingInfo, HandlerMethod> handler = null;
+            String matched = null;
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+                if (!entry.getKey().getMethodsCondition().getMethods().isEmpty()
+                        && !entry.getKey().getMethodsCondition().getMethods().contains(RequestMethod.GET)) {
+                    continue;
+                }
+                for (String pattern : entry.getKey().getPatternsCondition().getPatterns()) {
+                    if (pathMatcher.match(pattern, path)
+                            && (matched == null || specificity.compare(pattern, matched) < 0)) {
+                        handler = entry;
+                        matched = pattern;
+                    }
+                }
+            }
+            if (handler == null) {
+                throw new IllegalArgumentException("No GET handler to warm up with " + request);
+            }
+            replays.add(new Replay(request, handler.getValue().createWithResolvedBean(),
+                    pathMatcher.extractUriTemplateVariables(matched, path), uri.getQueryParams(),
+                    conversionService, objectMapper));
+        }
+        return replays;
+    }
+
+    private static final class Replay {
+        private final HandlerMethod handler;
+        private final Object[] arguments;
+        private final ObjectMapper objectMapper;
+
+        private Replay(String request, HandlerMethod handler, Map<String, String> pathVariables,
+                       MultiValueMap<String, String> queryParams, ConversionService conversionService,
+                       ObjectMapper objectMapper) {
+            this.handler = handler;
+            this.objectMapper = objectMapper;
+            MethodParameter[] parameters = handler.getMethodParameters();
+            this.arguments = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                String value = value(request, parameters[i], pathVariables, queryParams);
+                arguments[i] = conversionService.convert(value, TypeDescriptor.valueOf(String.class),
+                        new TypeDescriptor(parameters[i]));
+            }
+        }
+
+        private static String value(String request, MethodParameter parameter, Map<String, String> pathVariables,
+                                    MultiValueMap<String, String> queryParams) {
+            PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+            if (pathVariable != null) {
+                return pathVariables.get(pathVariable.name().isEmpty() ? pathVariable.value()
+                        : pathVariable.name());
+            }
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (requestParam == null) {
+                throw new IllegalArgumentException("Only path and query parameters can be warmed up with " + request
+                        + ", not " + parameter.getParameterType().getSimpleName());
+            }
+            String value = queryParams.getFirst(requestParam.name().isEmpty() ? requestParam.value()
+                    : requestParam.name());
+            if (value != null) {
+                return UriUtils.decode(value, StandardCharsets.UTF_8);
+            }
+            return ValueConstants.DEFAULT_NONE.equals(requestParam.defaultValue()) ? null : requestParam.defaultValue();
+        }
+
+        private void perform() throws Exception {
+            Object result;
+            try {
+                result = handler.getMethod().invoke(handler.getBean(), arguments);
+            } catch (InvocationTargetException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+            Object body = result instanceof HttpEntity ? ((HttpEntity<?>) result).getBody() : result;
+            if (body != null) {
+                objectMapper.writeValueAsBytes(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- Equality filters of GET /rest/players and /count (banned, race, profession) with the level range last,
+-- so count queries over these columns are answered from the index alone.
+CREATE INDEX idx_player_banned_race_profession_level ON player (banned, race, profession, level);
+
+-- Race/profession boards and range filters on experience without a banned predicate.
+CREATE INDEX idx_player_race_profession_experience ON player (race, profession, experience);
+
+-- Range filters and the ORDER BY columns of PlayerOrder.
+CREATE INDEX idx_player_experience ON player (experience);
+CREATE INDEX idx_player_birthday ON player (birthday);
+CREATE INDEX idx_player_level ON player (level);
+
+-- Pages ordered by name only: the name filter is a '%...%' substring match, which no index can narrow.
+CREATE INDEX idx_player_name ON player (name);
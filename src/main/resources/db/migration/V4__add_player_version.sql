@@ -0,0 +1,2 @@
+-- Optimistic lock of player writes: every update checks the version it read and increments it.
+ALTER TABLE player ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
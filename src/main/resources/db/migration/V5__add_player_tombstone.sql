@@ -0,0 +1,4 @@
+-- Soft-deleted players stay as tombstones, skipped by every read, until the purger removes them in small batches
+-- found through the index.
+ALTER TABLE player ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE;
+CREATE INDEX idx_player_deleted ON player (deleted);
@@ -1,79 +1,178 @@
-function loadContent(root, suffix, currentPage) {
+let currentPage = 1;
+let playersFound = 0;
+let changesSubscribed = false;
+let shownPlayers = {};
 
+function loadContent(root, suffix, page) {
+    currentPage = page;
     let objects = JSON.parse(Get(root + "/rest/players" + suffix).responseText);
     let playersCount = Get(root + "/rest/players/count" + suffix).responseText;
+    playersFound = +playersCount;
     document.getElementById("count").innerText = "Players found: " + playersCount;
     let table = document.getElementById("mainTable");
     table.innerHTML = "";
-    createPaging(document.getElementById("limit").value, playersCount, currentPage);
+    shownPlayers = {};
+    createPaging(document.getElementById("limit").value, playersCount, page);
 
     for (let i = 0; i < objects.length; i++) {
+        table.appendChild(createRow(root, objects[i]));
+    }
+    window.scrollTo(500, 100);
+}
+
+function createRow(root, player) {
 
-        let tr = document.createElement("tr");
-        let th = document.createElement("th");
-        th.setAttribute("scope", "row");
-        th.appendChild(document.createTextNode(objects[i].id));
-        tr.appendChild(th);
-        let td1 = document.createElement("td");
-        td1.appendChild(document.createTextNode(objects[i].name));
-        tr.appendChild(td1);
-        let td2 = document.createElement("td");
-        td2.appendChild(document.createTextNode(objects[i].title));
-        tr.appendChild(td2);
-        let td3 = document.createElement("td");
-        let race = objects[i].race.charAt(0).toUpperCase() + objects[i].race.slice(1).toLowerCase();
-        td3.appendChild(document.createTextNode(race));
-        tr.appendChild(td3);
-        let td4 = document.createElement("td");
-        let profession = objects[i].profession.charAt(0).toUpperCase() + objects[i].profession.slice(1).toLowerCase();
-        td4.appendChild(document.createTextNode(profession));
-        tr.appendChild(td4);
-        let td5 = document.createElement("td");
-        td5.appendChild(document.createTextNode(objects[i].experience));
-        tr.appendChild(td5);
-        let td6 = document.createElement("td");
-        td6.appendChild(document.createTextNode(objects[i].level));
-        tr.appendChild(td6);
-        let td7 = document.createElement("td");
-        td7.appendChild(document.createTextNode(objects[i].untilNextLevel));
-        tr.appendChild(td7);
-        let td8 = document.createElement("td");
-        let birthday = new Date();
-        birthday.setTime(objects[i].birthday);
-        td8.appendChild(document.createTextNode(birthday.toDateString()));
-        tr.appendChild(td8);
-        let banned;
-        if (objects[i].banned) {
-            banned = "banned";
-        } else {
-            banned = "active";
+    shownPlayers[player.id] = player;
+    let tr = document.createElement("tr");
+    tr.setAttribute("id", "player" + player.id);
+    let th = document.createElement("th");
+    th.setAttribute("scope", "row");
+    th.appendChild(document.createTextNode(player.id));
+    tr.appendChild(th);
+    let td1 = document.createElement("td");
+    td1.appendChild(document.createTextNode(player.name));
+    tr.appendChild(td1);
+    let td2 = document.createElement("td");
+    td2.appendChild(document.createTextNode(player.title));
+    tr.appendChild(td2);
+    let td3 = document.createElement("td");
+    let race = player.race.charAt(0).toUpperCase() + player.race.slice(1).toLowerCase();
+    td3.appendChild(document.createTextNode(race));
+    tr.appendChild(td3);
+    let td4 = document.createElement("td");
+    let profession = player.profession.charAt(0).toUpperCase() + player.profession.slice(1).toLowerCase();
+    td4.appendChild(document.createTextNode(profession));
+    tr.appendChild(td4);
+    let td5 = document.createElement("td");
+    td5.appendChild(document.createTextNode(player.experience));
+    tr.appendChild(td5);
+    let td6 = document.createElement("td");
+    td6.appendChild(document.createTextNode(player.level));
+    tr.appendChild(td6);
+    let td7 = document.createElement("td");
+    td7.appendChild(document.createTextNode(player.untilNextLevel));
+    tr.appendChild(td7);
+    let td8 = document.createElement("td");
+    let birthday = new Date();
+    birthday.setTime(player.birthday);
+    td8.appendChild(document.createTextNode(birthday.toDateString()));
+    tr.appendChild(td8);
+    let banned;
+    if (player.banned) {
+        banned = "banned";
+    } else {
+        banned = "active";
+    }
+    let td9 = document.createElement("td");
+    td9.appendChild(document.createTextNode(banned));
+    tr.appendChild(td9);
+    let warButton = document.createElement("button");
+    warButton.setAttribute("type", "button");
+    warButton.setAttribute("class", "btn btn-warning btn-sm");
+    warButton.appendChild(document.createTextNode("Edit"));
+    warButton.addEventListener("click", function () {
+        editButtonClick(root, tr, player.id)
+    });
+    let dangerButton = document.createElement("button");
+    dangerButton.setAttribute("type", "button");
+    dangerButton.setAttribute("class", "btn btn-danger btn-sm");
+    dangerButton.appendChild(document.createTextNode("Delete"));
+    dangerButton.addEventListener("click", function () {
+        processDelete(root, player.id)
+    });
+    let td10 = document.createElement("td");
+    td10.appendChild(warButton);
+    tr.appendChild(td10);
+    let td11 = document.createElement("td");
+    td11.appendChild(dangerButton);
+    tr.appendChild(td11);
+    return tr;
+}
+
+function subscribeToChanges(root) {
+    if (typeof EventSource === "undefined") {
+        return;
+    }
+    let source = new EventSource(root + "/rest/players/events");
+    source.addEventListener("players", function (event) {
+        let changes = JSON.parse(event.data);
+        for (let i = 0; i < changes.length; i++) {
+            if (!applyChange(root, changes[i])) {
+                processSearch(root, currentPage);
+                return;
+            }
         }
-        let td9 = document.createElement("td");
-        td9.appendChild(document.createTextNode(banned));
-        tr.appendChild(td9);
-        let warButton = document.createElement("button");
-        warButton.setAttribute("type", "button");
-        warButton.setAttribute("class", "btn btn-warning btn-sm");
-        warButton.appendChild(document.createTextNode("Edit"));
-        warButton.addEventListener("click", function () {
-            editButtonClick(root, tr, objects[i].id)
-        });
-        let dangerButton = document.createElement("button");
-        dangerButton.setAttribute("type", "button");
-        dangerButton.setAttribute("class", "btn btn-danger btn-sm");
-        dangerButton.appendChild(document.createTextNode("Delete"));
-        dangerButton.addEventListener("click", function () {
-            processDelete(root, objects[i].id)
-        });
-        let td10 = document.createElement("td");
-        td10.appendChild(warButton);
-        tr.appendChild(td10);
-        let td11 = document.createElement("td");
-        td11.appendChild(dangerButton);
-        tr.appendChild(td11);
-        table.appendChild(tr);
+    });
+    source.addEventListener("resync", function () {
+        processSearch(root, currentPage);
+    });
+    // Until the stream is open, and while it reconnects, edits and deletes reload the page themselves.
+    source.onopen = function () {
+        changesSubscribed = true;
+    };
+    source.onerror = function () {
+        changesSubscribed = false;
+    };
+}
+
+// Patches the row of a changed player and returns true, or returns false when the page has to be reloaded: a change
+// to a filtered or sorted column may move the player off the page or to another place on it.
+function applyChange(root, change) {
+    let row = document.getElementById("player" + change.id);
+    if (row === null) {
+        return true;
     }
-    window.scrollTo(500, 100);
+    if (change.type !== "DELETED" && queryColumns().some(function (column) {
+        return change.player[column] !== shownPlayers[change.id][column];
+    })) {
+        return false;
+    }
+    let editor = document.getElementById("update" + change.id);
+    if (editor !== null) {
+        editor.remove();
+    }
+    if (change.type === "DELETED") {
+        row.remove();
+        delete shownPlayers[change.id];
+        playersFound--;
+        document.getElementById("count").innerText = "Players found: " + playersFound;
+    } else {
+        row.replaceWith(createRow(root, change.player));
+    }
+    return true;
+}
+
+// The player fields the shown page is filtered or sorted by.
+function queryColumns() {
+    let columns = [document.getElementById("order").value.toLowerCase()];
+    if (document.getElementById("inputName").value !== "") {
+        columns.push("name");
+    }
+    if (document.getElementById("inputTitle").value !== "") {
+        columns.push("title");
+    }
+    if (document.getElementById("inputRace").value !== "Any") {
+        columns.push("race");
+    }
+    if (document.getElementById("inputProfession").value !== "Any") {
+        columns.push("profession");
+    }
+    if (document.getElementById("inputBirthdayAfter").value !== ""
+        || document.getElementById("inputBirthdayBefore").value !== "") {
+        columns.push("birthday");
+    }
+    if (document.getElementById("inlineRadio2").checked || document.getElementById("inlineRadio3").checked) {
+        columns.push("banned");
+    }
+    if (document.getElementById("inputExperienceMin").value !== ""
+        || document.getElementById("inputExperienceMax").value !== "") {
+        columns.push("experience");
+    }
+    if (document.getElementById("inputLevelMin").value !== ""
+        || document.getElementById("inputLevelMax").value !== "") {
+        columns.push("level");
+    }
+    return columns;
 }
 
 function Get(requestUrl) {
@@ -370,7 +469,9 @@ function sendUpdate(root, id) {
     body.experience = document.getElementById("updateExperience" + id).value;
 
     post(root + "/rest/players/" + id, JSON.stringify(body));
-    loadContent(root, "", 1);
+    if (!changesSubscribed) {
+        loadContent(root, "", 1);
+    }
 }
 
 function clickCreate() {
@@ -416,7 +517,9 @@ function processCreate(root) {
 
 function processDelete(root, id) {
     Delete(root + "/rest/players/" + id);
-    processSearch(root, 1);
+    if (!changesSubscribed) {
+        processSearch(root, 1);
+    }
 }
 
     
@@ -1,44 +1,76 @@
 package com.game.controller;
 
 import com.game.config.AppConfig;
+import com.game.config.JsonCompressionFilter;
 import com.game.config.MyWebAppInit;
 import com.game.config.WebConfig;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.StatementCounter;
+import com.game.metrics.EntityLoadCounter;
+import com.game.service.PlayerService;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
-@ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
+@ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class, StatementCounter.class})
 @WebAppConfiguration
 @Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+// No background reconciliation runs to upset query budgets, and H2 compares strings the way Java does.
+@TestPropertySource(properties = {"game.warmup.max-rounds=0", "game.stats.reconcile-seconds=0",
+        "game.planner.binary-collation=true"})
 public abstract class AbstractTest {
 
     WebApplicationContext context;
     MockMvc mockMvc;
+    StatementCounter statementCounter;
+    EntityLoadCounter entityLoadCounter;
 
     @Autowired
     public void setContext(WebApplicationContext context) {
         this.context = context;
     }
 
+    @Autowired
+    public void setCounters(StatementCounter statementCounter, EntityLoadCounter entityLoadCounter) {
+        this.statementCounter = statementCounter;
+        this.entityLoadCounter = entityLoadCounter;
+    }
+
     @Before
     public void setup() {
+        context.getBean(PlayerService.class).reloadListeners();
         mockMvc = MockMvcBuilders
                 .webAppContextSetup(context)
                 .addFilter(((request, response, chain) -> {
                     response.setCharacterEncoding("UTF-8");
                     chain.doFilter(request, response);
                 }))
+                .addFilters(context.getBean(JsonCompressionFilter.class))
                 .build();
     }
+
+    ResultActions perform(RequestBuilder request, QueryBudget budget) throws Exception {
+        statementCounter.reset();
+        entityLoadCounter.reset();
+        ResultActions resultActions = mockMvc.perform(request);
+        MockHttpServletRequest performed = resultActions.andReturn().getRequest();
+        budget.verify(performed.getMethod() + " " + performed.getRequestURI(), statementCounter,
+                entityLoadCounter.get());
+        return resultActions;
+    }
 }
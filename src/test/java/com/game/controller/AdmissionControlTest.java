@@ -0,0 +1,131 @@
+package com.game.controller;
+
+import com.game.admission.AdmissionControlInterceptor;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "game.admission.rules=GET /rest/**=0.001/2,* /rest/**=0.001/1",
+        "game.admission.client-header=X-Client",
+        "game.admission.trusted-proxies=127.0.0.1,10.0.0.1",
+        "game.admission.max-clients=8",
+        "game.admission.expensive.max-concurrent=1",
+        "game.admission.expensive.queue-timeout-ms=50"})
+public class AdmissionControlTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void readsAboveBurstAreRejectedWithRetryAfter() throws Exception {
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "reader"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/count").header("X-Client", "reader"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "reader"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1000"));
+
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "reader, 10.0.0.1"))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "other, reader"))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "reader, other, 10.0.0.1"))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void writesHaveTheirOwnBucket() throws Exception {
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "writer"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/1").header("X-Client", "writer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Один раз\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/1").header("X-Client", "writer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Второй раз\"}"))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "writer"))
+                .andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void expensiveQueriesShareLimitedSlots() throws Exception {
+        AdmissionControlInterceptor interceptor = context.getBean(AdmissionControlInterceptor.class);
+        MockHttpServletRequest held = new MockHttpServletRequest("GET", "/rest/players");
+        held.addHeader("X-Client", "holder");
+        MockHttpServletResponse heldResponse = new MockHttpServletResponse();
+        assertTrue("Первый тяжелый запрос должен получить слот", interceptor.preHandle(held, heldResponse, null));
+
+        mockMvc.perform(get("/rest/players/count?name=а").header("X-Client", "scanner"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players").header("X-Client", "scanner"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        interceptor.afterCompletion(held, heldResponse, null, null);
+        mockMvc.perform(get("/rest/players?pageSize=5").header("X-Client", "late scanner"))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Нет счетчика отказов по слотам", metrics.contains(
+                "admission_rejected_total{rule=\"expensive\",reason=\"concurrency\"}"));
+        assertTrue("Нет счетчика ожиданий в очереди", metrics.contains("admission_queued_total"));
+        assertTrue("Нет гистограммы ожидания", metrics.contains("admission_queue_wait_seconds_count"));
+    }
+
+    //test4
+    @Test
+    public void forgedHeadersFromAnUntrustedAddressAreIgnored() throws Exception {
+        for (int request = 0; request < 2; request++) {
+            mockMvc.perform(get("/rest/players/1").header("X-Client", "forged" + request)
+                    .with(direct -> {
+                        direct.setRemoteAddr("192.0.2.7");
+                        return direct;
+                    }))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "forged2, 10.0.0.1")
+                .with(direct -> {
+                    direct.setRemoteAddr("192.0.2.7");
+                    return direct;
+                }))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    //test5
+    @Test
+    public void onlyTheMostRecentlySeenClientsKeepABucket() throws Exception {
+        for (int client = 0; client < 20; client++) {
+            mockMvc.perform(get("/rest/players/1").header("X-Client", "visitor" + client))
+                    .andExpect(status().isOk());
+        }
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Matcher clients = Pattern.compile("(?m)^admission_clients (\\S+)$").matcher(metrics);
+        assertTrue("Нет числа клиентов", clients.find());
+        assertTrue("Клиентов не должно быть больше max-clients", Double.parseDouble(clients.group(1)) <= 8);
+
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "visitor19"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1").header("X-Client", "visitor19"))
+                .andExpect(status().isTooManyRequests());
+    }
+}
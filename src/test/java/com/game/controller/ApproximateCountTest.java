@@ -0,0 +1,52 @@
+package com.game.controller;
+
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "game.count.sample-size=16",
+        "game.count.min-sample-hits=2"
+})
+public class ApproximateCountTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void broadFilterIsEstimatedFromTheSampleWithoutQueries() throws Exception {
+        MockHttpServletResponse response = perform(get("/rest/players/count?title=о&approximate=true"),
+                QueryBudget.none())
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        int actual = testsHelper.getPlayerInfosByTitle("о", testsHelper.getAllPlayers()).size();
+        String bound = response.getHeader(Controller.COUNT_ERROR_BOUND);
+        assertTrue("Нет границы погрешности", bound != null);
+        int estimate = Integer.parseInt(response.getContentAsString());
+        assertTrue("Оценка " + estimate + " не в пределах " + bound + " от " + actual,
+                Math.abs(estimate - actual) <= Integer.parseInt(bound));
+    }
+
+    //test2
+    @Test
+    public void selectiveFilterIsCountedExactly() throws Exception {
+        MockHttpServletResponse response = perform(get("/rest/players/count?name=Никрашш&approximate=true"),
+                QueryBudget.selects(1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertNull("Точный подсчет не должен иметь погрешности", response.getHeader(Controller.COUNT_ERROR_BOUND));
+        assertEquals("Неверное количество игроков",
+                String.valueOf(testsHelper.getPlayerInfosByName("Никрашш", testsHelper.getAllPlayers()).size()),
+                response.getContentAsString());
+    }
+}
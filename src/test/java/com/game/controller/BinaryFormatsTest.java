@@ -0,0 +1,57 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.game.config.WebConfig;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatsTest extends AbstractTest {
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper smile = WebConfig.objectMapper(new SmileFactory());
+    private final ObjectMapper cbor = WebConfig.objectMapper(new CBORFactory());
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getAllAsCbor() throws Exception {
+        byte[] content = mockMvc.perform(get("/rest/players?pageSize=5").accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(0, 5, testsHelper.getAllPlayers());
+        assertEquals("Неверный результат GET /rest/players в формате CBOR", expected,
+                cbor.readValue(content, typeReference));
+    }
+
+    //test2
+    @Test
+    public void createPlayerFromSmile() throws Exception {
+        byte[] body = smile.writeValueAsBytes(new ObjectMapper().readTree(TestsHelper.NORMAL_JSON));
+        byte[] content = mockMvc.perform(post("/rest/players").contentType(SMILE).accept(SMILE).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PlayerInfoTest created = smile.readValue(content, PlayerInfoTest.class);
+        assertEquals("Неверное имя игрока, созданного из Smile", "Амарылис", created.name);
+        assertEquals("Неверный уровень игрока, созданного из Smile", 35, (int) created.level);
+    }
+}
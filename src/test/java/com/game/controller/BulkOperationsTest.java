@@ -0,0 +1,144 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "game.bulk.chunk-size=3")
+public class BulkOperationsTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void banMatchingPlayersInChunks() throws Exception {
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByBaned(false,
+                testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()));
+        int chunks = elves.size() / 3 + 1;
+        String changed = perform(post("/rest/players/bulk?action=BAN&race=ELF&banned=false"),
+                QueryBudget.selects(chunks).andUpdates(chunks))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное число забаненных игроков", String.valueOf(elves.size()), changed);
+        assertEquals("Не должно остаться незабаненных эльфов", "0",
+                mockMvc.perform(get("/rest/players/count?race=ELF&banned=false"))
+                        .andReturn().getResponse().getContentAsString());
+        assertEquals("Игрок должен быть забанен", true, player(elves.get(0).id).banned);
+    }
+
+    //test2
+    @Test
+    public void grantedExperienceRecomputesLevels() throws Exception {
+        List<PlayerInfoTest> rogues = testsHelper.getPlayerInfosByProfession(Profession.ROGUE,
+                testsHelper.getAllPlayers());
+        int chunks = rogues.size() / 3 + 1;
+        String changed = perform(post("/rest/players/bulk?action=GRANT_EXPERIENCE&delta=9000000&profession=ROGUE"),
+                QueryBudget.selects(chunks).andUpdates(3 * chunks))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное число игроков с новым опытом", String.valueOf(rogues.size()), changed);
+        for (PlayerInfoTest rogue : rogues) {
+            int experience = Math.min(10_000_000, rogue.experience + 9_000_000);
+            int level = (int) ((Math.sqrt(2500 + 200 * experience) - 50) / 100);
+            PlayerInfoTest updated = player(rogue.id);
+            assertEquals("Неверный опыт", experience, updated.experience);
+            assertEquals("Неверный уровень", level, updated.level);
+            assertEquals("Неверный опыт до следующего уровня", 50 * (level + 1) * (level + 2) - experience,
+                    updated.untilNextLevel);
+        }
+    }
+
+    //test3
+    @Test
+    public void deleteMatchingPlayers() throws Exception {
+        int warriors = testsHelper.getPlayerInfosByProfession(Profession.WARRIOR, testsHelper.getAllPlayers()).size();
+        String changed = perform(post("/rest/players/bulk?action=DELETE&profession=WARRIOR"),
+                QueryBudget.selects(warriors / 3 + 1).andDeletes(warriors / 3 + 1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное число удаленных игроков", String.valueOf(warriors), changed);
+        assertEquals("Не должно остаться воинов", "0", mockMvc.perform(get("/rest/players/count?profession=WARRIOR"))
+                .andReturn().getResponse().getContentAsString());
+        assertEquals("Неверное число оставшихся игроков", String.valueOf(40 - warriors),
+                mockMvc.perform(get("/rest/players/count")).andReturn().getResponse().getContentAsString());
+    }
+
+    //test4
+    @Test
+    public void experienceGrantNeedsDelta() throws Exception {
+        perform(post("/rest/players/bulk?action=GRANT_EXPERIENCE&race=ELF"), QueryBudget.none())
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void everyPlayerTakesAnExplicitAll() throws Exception {
+        perform(post("/rest/players/bulk?action=DELETE"), QueryBudget.none())
+                .andExpect(status().isBadRequest());
+
+        assertEquals("Должны быть забанены все игроки", "40",
+                mockMvc.perform(post("/rest/players/bulk?action=BAN&all=true"))
+                        .andReturn().getResponse().getContentAsString());
+        assertEquals("Не должно остаться незабаненных", "0", mockMvc.perform(get("/rest/players/count?banned=false"))
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    //test6
+    @Test
+    public void chunksWaitForConcurrentWritersBeforeComputingNewStates() throws Exception {
+        PlayerInfoTest elf = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).get(0);
+        CompletableFuture<String> bulk;
+        try (Connection writer = dataSource.getConnection()) {
+            writer.setAutoCommit(false);
+            try (Statement statement = writer.createStatement()) {
+                statement.executeUpdate("UPDATE player SET experience = experience + 1000 WHERE id = " + elf.id);
+            }
+            bulk = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return mockMvc.perform(post("/rest/players/bulk?action=GRANT_EXPERIENCE&delta=5&race=ELF"))
+                            .andReturn().getResponse().getContentAsString();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Thread.sleep(200);
+            writer.commit();
+        }
+        bulk.get(10, TimeUnit.SECONDS);
+
+        String rank = mockMvc.perform(get("/rest/players/" + elf.id + "/rank"))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Рейтинг должен видеть опыт из базы", elf.experience + 1005,
+                mapper.readTree(rank).get("experience").asInt());
+        assertEquals("Неверный опыт в базе", elf.experience + 1005, player(elf.id).experience);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        return mapper.readValue(mockMvc.perform(get("/rest/players/" + id))
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+    }
+}
@@ -0,0 +1,136 @@
+package com.game.controller;
+
+import com.game.config.JsonCompressionFilter;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CompressionTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void versionedResourceIsImmutable() throws Exception {
+        String url = context.getBean(ResourceUrlProvider.class).getForLookupPath("/resources/scripts.js");
+        assertTrue("Ссылка на ресурс должна содержать хэш содержимого: " + url,
+                url.matches("/resources/scripts-[0-9a-f]{32}\\.js"));
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"));
+    }
+
+    //test2
+    @Test
+    public void plainResourceIsRevalidated() throws Exception {
+        mockMvc.perform(get("/resources/scripts.js"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    //test3
+    @Test
+    public void largeJsonIsGzipped() throws Exception {
+        String plain = mockMvc.perform(get("/rest/players?pageSize=40"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getContentAsString();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players?pageSize=40")
+                .header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse();
+        byte[] compressed = response.getContentAsByteArray();
+        String unzipped = StreamUtils.copyToString(
+                new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8);
+        assertEquals("Распакованный ответ отличается от несжатого", plain, unzipped);
+        assertTrue("Сжатый ответ должен быть меньше исходного", compressed.length < plain.length());
+    }
+
+    //test4
+    @Test
+    public void smallJsonIsNotGzipped() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/1")
+                .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertNull("Короткий ответ не должен сжиматься", response.getHeader("Content-Encoding"));
+        assertTrue("Короткий ответ должен быть обычным JSON",
+                response.getContentAsString(StandardCharsets.UTF_8).startsWith("{"));
+    }
+
+    //test5
+    @Test
+    public void nonBlockingWritesGoOutUncompressed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/players");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse mock = new MockHttpServletResponse();
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        WriteListener[] registered = new WriteListener[1];
+        ServletOutputStream container = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                sent.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                registered[0] = writeListener;
+            }
+        };
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+        };
+        byte[] json = new byte[4096];
+        Arrays.fill(json, (byte) ' ');
+
+        context.getBean(JsonCompressionFilter.class).doFilter(request, new HttpServletResponseWrapper(mock) {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return container;
+            }
+        }, (req, res) -> {
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            ServletOutputStream out = res.getOutputStream();
+            out.write(json, 0, 10);
+            out.setWriteListener(listener);
+            assertTrue("Поток должен быть готов к записи", out.isReady());
+            out.write(json, 10, json.length - 10);
+        });
+
+        assertTrue("Слушатель должен дойти до контейнера", registered[0] == listener);
+        assertNull("Неблокирующий ответ не должен сжиматься", mock.getHeader("Content-Encoding"));
+        assertTrue("Ответ должен уйти целиком и без изменений", Arrays.equals(json, sent.toByteArray()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConcurrentUpdateTest extends AbstractTest {
+    private static final int UPDATES = 30;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void concurrentUpdatesOfOnePlayerAreNotLost() throws Exception {
+        // Every thread keeps rewriting its own field of the same player; a lost update would bring back an older
+        // value of some other thread's field.
+        String[] fields = {"name", "title", "experience", "race"};
+        ExecutorService executor = Executors.newFixedThreadPool(fields.length);
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+            for (String field : fields) {
+                threads.add(executor.submit(() -> {
+                    for (int i = 1; i <= UPDATES; i++) {
+                        mockMvc.perform(post("/rest/players/1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"" + field + "\": " + value(field, i) + "}"))
+                                .andExpect(status().isOk());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> thread : threads) {
+                thread.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        PlayerInfoTest player = mapper.readValue(mockMvc.perform(get("/rest/players/1"))
+                .andReturn().getResponse().getContentAsString(), PlayerInfoTest.class);
+        assertEquals("Потеряно обновление имени", "Имя" + UPDATES, player.name);
+        assertEquals("Потеряно обновление титула", "Титул" + UPDATES, player.title);
+        assertEquals("Потеряно обновление опыта", 1_000 * UPDATES, player.experience);
+        assertEquals("Потеряно обновление расы", Race.values()[UPDATES % Race.values().length], player.race);
+    }
+
+    private static String value(String field, int i) {
+        switch (field) {
+            case "name":
+                return "\"Имя" + i + "\"";
+            case "title":
+                return "\"Титул" + i + "\"";
+            case "experience":
+                return String.valueOf(1_000 * i);
+            default:
+                return "\"" + Race.values()[i % Race.values().length] + "\"";
+        }
+    }
+}
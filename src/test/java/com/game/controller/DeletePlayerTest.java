@@ -1,5 +1,6 @@
 package com.game.controller;
 
+import com.game.controller.utils.QueryBudget;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 
@@ -12,7 +13,7 @@ public class DeletePlayerTest extends AbstractTest {
     //test1
     @Test
     public void deletePlayerByIdZeroTest() throws Exception {
-        mockMvc.perform(delete("/rest/players/0"))
+        perform(delete("/rest/players/0"), QueryBudget.none())
                 .andExpect(status().isBadRequest());
     }
 
@@ -26,17 +27,17 @@ public class DeletePlayerTest extends AbstractTest {
     //test3
     @Test
     public void deletePlayerByIdNotExistTest() throws Exception {
-        mockMvc.perform(delete("/rest/players/426"))
+        perform(delete("/rest/players/426"), QueryBudget.selects(1))
                 .andExpect(status().isNotFound());
     }
 
     //test4
     @Test
     public void deletePlayerByIdTest() throws Exception {
-        mockMvc.perform(delete("/rest/players/1"))
+        perform(delete("/rest/players/1"), QueryBudget.selects(1).andDeletes(1).andEntitiesLoaded(1))
                 .andExpect(status().isOk());
 
         mockMvc.perform(get("/rest/players/1"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
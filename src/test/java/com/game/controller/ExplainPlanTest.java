@@ -0,0 +1,73 @@
+package com.game.controller;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class ExplainPlanTest extends AbstractTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    //test1
+    @Test
+    public void bannedRaceProfessionLevelUsesCompositeIndex() {
+        assertPlanUses("SELECT * FROM player WHERE banned = FALSE AND race = 'ELF' AND profession = 'ROGUE' "
+                + "AND level BETWEEN 10 AND 30", "IDX_PLAYER_BANNED_RACE_PROFESSION_LEVEL");
+    }
+
+    //test2
+    @Test
+    public void countByEnumsAndBannedIsCovered() {
+        assertPlanUses("SELECT COUNT(*) FROM player WHERE banned = TRUE AND race = 'DWARF'",
+                "IDX_PLAYER_BANNED_RACE_PROFESSION_LEVEL");
+    }
+
+    //test3
+    @Test
+    public void raceProfessionExperienceRangeUsesIndex() {
+        assertPlanUses("SELECT * FROM player WHERE race = 'ELF' AND profession = 'SORCERER' "
+                + "AND experience BETWEEN 50000 AND 150000", "IDX_PLAYER_RACE_PROFESSION_EXPERIENCE");
+    }
+
+    //test4
+    @Test
+    public void experienceRangeUsesIndex() {
+        assertPlanUses("SELECT * FROM player WHERE experience BETWEEN 30000 AND 100000",
+                "IDX_PLAYER_EXPERIENCE");
+    }
+
+    //test5
+    @Test
+    public void birthdayRangeUsesIndex() {
+        assertPlanUses("SELECT * FROM player WHERE birthday BETWEEN '2005-01-01' AND '2009-01-01'",
+                "IDX_PLAYER_BIRTHDAY");
+    }
+
+    //test6
+    @Test
+    public void orderByExperienceIsIndexSorted() {
+        assertPlanUses("SELECT * FROM player ORDER BY experience LIMIT 10", "IDX_PLAYER_EXPERIENCE");
+        assertPlanUses("SELECT * FROM player ORDER BY experience LIMIT 10", "index sorted");
+    }
+
+    //test7
+    @Test
+    public void orderByBirthdayIsIndexSorted() {
+        assertPlanUses("SELECT * FROM player ORDER BY birthday LIMIT 10", "IDX_PLAYER_BIRTHDAY");
+        assertPlanUses("SELECT * FROM player ORDER BY birthday LIMIT 10", "index sorted");
+    }
+
+    private void assertPlanUses(String query, String expected) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+        assertTrue("План запроса " + query + " не содержит " + expected + ":\n" + plan, plan.contains(expected));
+    }
+}
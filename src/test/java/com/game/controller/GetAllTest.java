@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
 import com.game.controller.utils.TestsHelper;
 import org.junit.Test;
 import org.springframework.http.MediaType;
@@ -27,7 +28,7 @@ public class GetAllTest extends AbstractTest {
     //test1
     @Test
     public void getAllWithoutFiltersReturnAllPlayers() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/players"))
+        ResultActions resultActions = perform(get("/rest/players"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -42,7 +43,7 @@ public class GetAllTest extends AbstractTest {
     //test2
     @Test
     public void getAllWithFiltersNamePageNumber() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?name=ра&pageNumber=1"))
+        ResultActions resultActions = perform(get("/rest/players?name=ра&pageNumber=1"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -58,7 +59,7 @@ public class GetAllTest extends AbstractTest {
     //test3
     @Test
     public void getAllWithFiltersTitlePageSize() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?title=ой&pageSize=4"))
+        ResultActions resultActions = perform(get("/rest/players?title=ой&pageSize=4"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -76,7 +77,7 @@ public class GetAllTest extends AbstractTest {
     public void getAllWithFiltersRaceProfessionAfterBefore() throws Exception {
         //after 00:00 01.01.2003
         //before 00:00 01.01.2006
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?race=HUMAN&profession=WARRIOR&after=1041372000000&before=1136066400000"))
+        ResultActions resultActions = perform(get("/rest/players?race=HUMAN&profession=WARRIOR&after=1041372000000&before=1136066400000"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -97,7 +98,7 @@ public class GetAllTest extends AbstractTest {
     //test5
     @Test
     public void getAllWithFiltersRaceProfessionMinExperienceMaxExperience() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?race=ELF&profession=SORCERER&minExperience=50000&maxExperience=150000"))
+        ResultActions resultActions = perform(get("/rest/players?race=ELF&profession=SORCERER&minExperience=50000&maxExperience=150000"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -117,7 +118,7 @@ public class GetAllTest extends AbstractTest {
     //test6
     @Test
     public void getAllWithFiltersBannedMinLevelMaxLevel() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?banned=false&minLevel=10&maxLevel=30"))
+        ResultActions resultActions = perform(get("/rest/players?banned=false&minLevel=10&maxLevel=30"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -136,7 +137,7 @@ public class GetAllTest extends AbstractTest {
     //test7
     @Test
     public void getAllWithFiltersBannedMaxLevel() throws Exception {
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?banned=false&maxLevel=20"))
+        ResultActions resultActions = perform(get("/rest/players?banned=false&maxLevel=20"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -156,7 +157,7 @@ public class GetAllTest extends AbstractTest {
     public void getAllWithFiltersAfterBeforeMinExperienceMaxExperience() throws Exception {
         //after 00:00 01.01.2005
         //before 00:00 01.01.2009
-        ResultActions resultActions = mockMvc.perform(get("/rest/players?after=1104530400000&before=1230760800000&minExperience=30000&maxExperience=100000&pageNumber=1"))
+        ResultActions resultActions = perform(get("/rest/players?after=1104530400000&before=1230760800000&minExperience=30000&maxExperience=100000&pageNumber=1"), QueryBudget.selects(1))
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -172,4 +173,4 @@ public class GetAllTest extends AbstractTest {
 
         assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами after, before, minExperience и maxExperience.", expected, actual);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.game.controller;
 
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.game.controller.utils.QueryBudget;
 import com.game.controller.utils.TestsHelper;
 import org.junit.Test;
 import org.springframework.http.MediaType;
@@ -19,8 +20,8 @@ public class GetCountTest extends AbstractTest {
     //test1
     @Test
     public void getCountWithoutFiltersReturnAllPlayers() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/players/count")
-                .accept(MediaType.APPLICATION_JSON))
+        ResultActions resultActions = perform(get("/rest/players/count")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.none())
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -70,8 +71,8 @@ public class GetCountTest extends AbstractTest {
     //test4
     @Test
     public void getCountWithFiltersRaceProfessionBanned() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/players/count?race=DWARF&profession=CLERIC&banned=true")
-                .accept(MediaType.APPLICATION_JSON))
+        ResultActions resultActions = perform(get("/rest/players/count?race=DWARF&profession=CLERIC&banned=true")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.none())
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -140,8 +141,8 @@ public class GetCountTest extends AbstractTest {
     //test8
     @Test
     public void getCountWithFiltersBanned() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/players/count?banned=false")
-                .accept(MediaType.APPLICATION_JSON))
+        ResultActions resultActions = perform(get("/rest/players/count?banned=false")
+                .accept(MediaType.APPLICATION_JSON), QueryBudget.none())
                 .andExpect(status().isOk());
 
         MvcResult result = resultActions.andReturn();
@@ -151,4 +152,4 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/players/count с параметром banned.", expected, actual);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
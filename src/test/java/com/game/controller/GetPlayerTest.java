@@ -2,6 +2,7 @@ package com.game.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
 import com.game.controller.utils.TestsHelper;
 import org.junit.Test;
 import org.springframework.http.MediaType;
@@ -16,7 +17,7 @@ public class GetPlayerTest extends AbstractTest {
     //test1
     @Test
     public void getPlayerByIdEqualZeroTest() throws Exception {
-        mockMvc.perform(get("/rest/players/0"))
+        perform(get("/rest/players/0"), QueryBudget.none())
                 .andExpect(status().isBadRequest());
     }
 
@@ -30,7 +31,7 @@ public class GetPlayerTest extends AbstractTest {
     //test3
     @Test
     public void getPlayerByIdNotExistTest() throws Exception {
-        mockMvc.perform(get("/rest/players/410"))
+        perform(get("/rest/players/410"), QueryBudget.selects(1))
                 .andExpect(status().isNotFound());
     }
 
@@ -39,7 +40,7 @@ public class GetPlayerTest extends AbstractTest {
     public void getPlayerByIdTest() throws Exception {
         PlayerInfoTest expected = new TestsHelper().getPlayerInfosById(14);
 
-        ResultActions resultActions = mockMvc.perform(get("/rest/players/14"))
+        ResultActions resultActions = perform(get("/rest/players/14"), QueryBudget.selects(1).andEntitiesLoaded(1))
                 .andExpect(status().isOk());
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
@@ -47,4 +48,4 @@ public class GetPlayerTest extends AbstractTest {
         PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
         assertEquals("Вернулся неправильный объект при запросе GET /rest/players/{id}", expected, actual);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.events.PlayerChange;
+import com.game.journal.JournalRecord;
+import com.game.journal.PlayerJournal;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "game.journal.enabled=true",
+        "game.journal.directory=target/journal-test"
+})
+public class JournalTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void createUpdateAndDeleteAreJournaledBeforeTheyAreAnswered() throws Exception {
+        PlayerJournal journal = context.getBean(PlayerJournal.class);
+        journal.flush();
+        long start = journal.lastSequence();
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Создание должно быть в журнале до ответа", start + 1, journal.lastSequence());
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Летописец\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Обновление должно быть в журнале до ответа", start + 2, journal.lastSequence());
+        mockMvc.perform(delete("/rest/players/8"))
+                .andExpect(status().isOk());
+        assertEquals("Удаление должно быть в журнале до ответа", start + 3, journal.lastSequence());
+
+        List<JournalRecord> records = new ArrayList<>();
+        journal.reader().replay(start, records::add);
+        assertEquals("Ожидались три записи журнала", 3, records.size());
+        assertEquals("Неверный тип первой записи", PlayerChange.Type.CREATED, records.get(0).getChange().getType());
+        assertEquals("Неверное имя созданного игрока", "Амарылис",
+                records.get(0).getChange().getPlayer().getName());
+        assertEquals("Неверный тип второй записи", PlayerChange.Type.UPDATED, records.get(1).getChange().getType());
+        assertEquals("Неверный титул обновленного игрока", "Летописец",
+                records.get(1).getChange().getPlayer().getTitle());
+        assertEquals("Неверный тип третьей записи", PlayerChange.Type.DELETED, records.get(2).getChange().getType());
+        assertEquals("Неверный id удаленного игрока", 8L, records.get(2).getChange().getId());
+    }
+}
@@ -0,0 +1,95 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LeaderboardTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+    private final Comparator<PlayerInfoTest> byExperienceDesc =
+            Comparator.<PlayerInfoTest>comparingInt(player -> -player.experience).thenComparingLong(player -> player.id);
+
+    //test1
+    @Test
+    public void topPlayersAreSortedByExperienceWithoutQueries() throws Exception {
+        String content = perform(get("/rest/leaderboard?top=5"), QueryBudget.none())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers().stream()
+                .sorted(byExperienceDesc).limit(5).collect(Collectors.toList());
+        assertEquals("Неверный результат GET /rest/leaderboard", expected, mapper.readValue(content, typeReference));
+    }
+
+    //test2
+    @Test
+    public void topPlayersOfRace() throws Exception {
+        String content = mockMvc.perform(get("/rest/leaderboard?top=3&race=ELF"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers())
+                .stream().sorted(byExperienceDesc).limit(3).collect(Collectors.toList());
+        assertEquals("Неверный результат GET /rest/leaderboard с параметром race", expected,
+                mapper.readValue(content, typeReference));
+    }
+
+    //test3
+    @Test
+    public void invalidTopIsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/leaderboard?top=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void rankFollowsUpdatesAndDeletes() throws Exception {
+        List<PlayerInfoTest> sorted = testsHelper.getAllPlayers().stream()
+                .sorted(byExperienceDesc).collect(Collectors.toList());
+        PlayerInfoTest last = sorted.get(sorted.size() - 1);
+
+        JsonNode rank = readRank(last.id);
+        assertEquals("Неверный ранг игрока", sorted.size(), rank.get("rank").asInt());
+        assertEquals("Неверное число игроков", sorted.size(), rank.get("total").asInt());
+
+        mockMvc.perform(post("/rest/players/" + last.id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 10000000}"))
+                .andExpect(status().isOk());
+        assertEquals("Ранг не обновился после изменения опыта", 1, readRank(last.id).get("rank").asInt());
+
+        mockMvc.perform(delete("/rest/players/" + sorted.get(0).id))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/" + sorted.get(0).id + "/rank"))
+                .andExpect(status().isNotFound());
+        assertEquals("Число игроков не обновилось после удаления", sorted.size() - 1,
+                readRank(last.id).get("total").asInt());
+    }
+
+    private JsonNode readRank(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/players/" + id + "/rank"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
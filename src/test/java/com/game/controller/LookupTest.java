@@ -0,0 +1,73 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LookupTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<LookupInfo>> typeReference = new TypeReference<List<LookupInfo>>() {
+    };
+
+    //test1
+    @Test
+    public void playersAreFoundByOneQueryInRequestOrder() throws Exception {
+        String content = perform(post("/rest/players/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[5, 426, 3, 5]"),
+                QueryBudget.selects(1).andEntitiesLoaded(2))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<LookupInfo> found = mapper.readValue(content, typeReference);
+        assertEquals("Неверное число результатов", 4, found.size());
+        assertLookup(found.get(0), 5);
+        assertEquals("Отсутствующий игрок должен быть помечен", false, found.get(1).found);
+        assertEquals("Неверный id отсутствующего игрока", 426L, found.get(1).id);
+        assertNull("У отсутствующего игрока не должно быть данных", found.get(1).player);
+        assertLookup(found.get(2), 3);
+        assertLookup(found.get(3), 5);
+
+        String cached = perform(post("/rest/players/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[3, 426, 5]"),
+                QueryBudget.none())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Повторный поиск должен отвечать из кэша", 3, mapper.readValue(cached, typeReference).size());
+    }
+
+    //test2
+    @Test
+    public void invalidIdsAreBadRequest() throws Exception {
+        perform(post("/rest/players/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 0]"),
+                QueryBudget.none())
+                .andExpect(status().isBadRequest());
+    }
+
+    private void assertLookup(LookupInfo lookup, long id) {
+        assertEquals("Игрок " + id + " должен быть найден", true, lookup.found);
+        assertEquals("Неверный игрок", testsHelper.getPlayerInfosById(id), lookup.player);
+    }
+
+    public static class LookupInfo {
+        public Long id;
+        public Boolean found;
+        public PlayerInfoTest player;
+    }
+}
@@ -0,0 +1,80 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MatchmakingTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void closestUnbannedPlayersWithoutQueries() throws Exception {
+        PlayerInfoTest player = testsHelper.getPlayerInfosById(1);
+        String content = perform(get("/rest/players/1/matches?k=5"), QueryBudget.none())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверный результат GET /rest/players/1/matches",
+                closest(player, testsHelper.getAllPlayers(), 5), mapper.readValue(content, typeReference));
+    }
+
+    //test2
+    @Test
+    public void closestPlayersOfRaceFollowUpdates() throws Exception {
+        PlayerInfoTest player = testsHelper.getPlayerInfosById(1);
+        List<PlayerInfoTest> elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        List<PlayerInfoTest> expected = closest(player, elves, 3);
+        assertEquals("Неверный результат GET /rest/players/1/matches с параметром race", expected,
+                readMatches("/rest/players/1/matches?k=3&race=ELF"));
+
+        mockMvc.perform(post("/rest/players/" + expected.get(0).id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\": true}"))
+                .andExpect(status().isOk());
+        assertTrue("Забаненный игрок не должен подбираться", readMatches("/rest/players/1/matches?k=3&race=ELF")
+                .stream().noneMatch(match -> match.id.equals(expected.get(0).id)));
+    }
+
+    //test3
+    @Test
+    public void invalidRequests() throws Exception {
+        mockMvc.perform(get("/rest/players/1/matches?k=0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players/426/matches"))
+                .andExpect(status().isNotFound());
+    }
+
+    private List<PlayerInfoTest> readMatches(String url) throws Exception {
+        return mapper.readValue(mockMvc.perform(get(url)).andReturn().getResponse().getContentAsString(),
+                typeReference);
+    }
+
+    private static List<PlayerInfoTest> closest(PlayerInfoTest player, List<PlayerInfoTest> players, int count) {
+        return players.stream()
+                .filter(other -> !other.banned && !other.id.equals(player.id))
+                .sorted(Comparator.<PlayerInfoTest>comparingInt(other -> Math.abs(other.experience - player.experience))
+                        .thenComparingInt(other -> other.experience))
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+}
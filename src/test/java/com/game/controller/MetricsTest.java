@@ -0,0 +1,36 @@
+package com.game.controller;
+
+import org.junit.Test;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void metricsContainEndpointRepositoryAndHibernateStatistics() throws Exception {
+        mockMvc.perform(get("/rest/players?pageSize=5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/410"))
+                .andExpect(status().isNotFound());
+
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Нет гистограммы задержек для GET /rest/players",
+                metrics.contains("http_server_requests_seconds_count{method=\"GET\",uri=\"/rest/players\"}"));
+        assertTrue("Нет счетчика 404 для GET /rest/players/{id}",
+                metrics.contains("http_server_requests_total{method=\"GET\",uri=\"/rest/players/{id}\",status=\"404\"}"));
+        assertTrue("Нет таймингов вызовов PlayerRepository",
+                metrics.contains("player_repository_seconds_count{method=\"findAll\"}"));
+        assertTrue("Нет статистики Hibernate",
+                metrics.contains("# TYPE hibernate_statements_prepared_total counter"));
+        assertTrue("Нет числа загруженных строк",
+                metrics.contains("player_query_rows_bucket{stage=\"loaded\""));
+        assertTrue("Нет числа возвращенных строк",
+                metrics.contains("player_query_rows_bucket{stage=\"returned\",le=\"10\"}"));
+    }
+}
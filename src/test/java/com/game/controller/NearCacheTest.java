@@ -0,0 +1,66 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class NearCacheTest extends AbstractTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void missingPlayerIsCachedUntilCreated() throws Exception {
+        perform(get("/rest/players/41"), QueryBudget.selects(1))
+                .andExpect(status().isNotFound());
+        perform(get("/rest/players/41"), QueryBudget.none())
+                .andExpect(status().isNotFound());
+
+        String created = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Ожидался игрок с id 41", 41L, (long) mapper.readValue(created, PlayerInfoTest.class).id);
+        mockMvc.perform(get("/rest/players/41"))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Нет счетчика отрицательных попаданий",
+                metrics.contains("player_near_cache_requests_total{result=\"negative\"}"));
+    }
+
+    //test2
+    @Test
+    public void playerIsCachedUntilUpdatedOrDeleted() throws Exception {
+        perform(get("/rest/players/7"), QueryBudget.selects(1))
+                .andExpect(status().isOk());
+        perform(get("/rest/players/7"), QueryBudget.none().andEntitiesLoaded(0))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Из кэша\"}"))
+                .andExpect(status().isOk());
+        String updated = perform(get("/rest/players/7"), QueryBudget.selects(1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Кэш вернул игрока до обновления", "Из кэша",
+                mapper.readValue(updated, PlayerInfoTest.class).title);
+
+        mockMvc.perform(delete("/rest/players/7"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/7"))
+                .andExpect(status().isNotFound());
+    }
+}
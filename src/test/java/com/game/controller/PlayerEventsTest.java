@@ -0,0 +1,63 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.events.PlayerEventStream;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "game.events.flush-interval-ms=3600000")
+public class PlayerEventsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void changesArePushedAndCoalesced() throws Exception {
+        MvcResult events = mockMvc.perform(get("/rest/players/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Первый\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Второй\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/8"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        context.getBean(PlayerEventStream.class).flush();
+        String content = awaitContent(events.getResponse(), "\"id\":41");
+        assertTrue("Нет события обновления игрока 7", content.contains("{\"type\":\"UPDATED\",\"id\":7,"));
+        assertTrue("Изменения игрока 7 не объединены", content.contains("Второй") && !content.contains("Первый"));
+        assertTrue("Нет события удаления игрока 8",
+                content.contains("{\"type\":\"DELETED\",\"id\":8,\"player\":null}"));
+        assertTrue("Нет события создания игрока", content.contains("{\"type\":\"CREATED\",\"id\":41,"));
+        assertEquals("Ожидалось одно событие players", 1, content.split("event:players").length - 1);
+    }
+
+    private String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        return content;
+    }
+}
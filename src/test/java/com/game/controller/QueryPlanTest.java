@@ -0,0 +1,71 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class QueryPlanTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void twoSubstringsOfSmallTableAreScannedInMemory() throws Exception {
+        String content = perform(get("/rest/players?name=а&title=о&pageSize=4"), QueryBudget.selects(1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(0, 4,
+                testsHelper.getPlayerInfosByTitle("о",
+                        testsHelper.getPlayerInfosByName("а", testsHelper.getAllPlayers())));
+        assertEquals("Неверный результат поиска по подстрокам", expected, mapper.readValue(content, typeReference));
+        assertTrue("Запрос должен выполняться в памяти", metrics().contains(
+                "player_query_plans_total{query=\"filter\",strategy=\"scan\"}"));
+    }
+
+    //test2
+    @Test
+    public void orderedPagesAndCountsArePushedDownToSql() throws Exception {
+        String content = perform(get("/rest/players?order=EXPERIENCE&pageNumber=2&pageSize=5"),
+                QueryBudget.selects(1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<PlayerInfoTest> byExperience = new ArrayList<>(testsHelper.getAllPlayers());
+        byExperience.sort(Comparator.comparing((PlayerInfoTest player) -> player.experience)
+                .thenComparing(player -> player.id));
+        assertEquals("Неверная страница по опыту", testsHelper.getPlayerInfosByPage(2, 5, byExperience),
+                mapper.readValue(content, typeReference));
+
+        String count = perform(get("/rest/players/count?title=ой"), QueryBudget.selects(1))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Неверное количество игроков",
+                String.valueOf(testsHelper.getPlayerInfosByTitle("ой", testsHelper.getAllPlayers()).size()), count);
+
+        String metrics = metrics();
+        assertTrue("Страница должна выполняться в SQL", metrics.contains(
+                "player_query_plans_total{query=\"filter\",strategy=\"pushdown\"}"));
+        assertTrue("Подсчет должен выполняться в SQL", metrics.contains(
+                "player_query_plans_total{query=\"count\",strategy=\"pushdown\"}"));
+    }
+
+    private String metrics() throws Exception {
+        return mockMvc.perform(get("/metrics")).andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,280 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.AppConfig;
+import com.game.config.MyWebAppInit;
+import com.game.config.ShardSplit;
+import com.game.config.WebConfig;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import com.game.repository.PlayerShards;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("sharded")
+@ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {
+        "game.shards.urls=" + ShardingTest.URLS,
+        "game.shards.username=sa",
+        "game.shards.password="})
+public class ShardingTest {
+    static final String URLS = "jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,"
+            + "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1";
+    private static final int SHARDS = 3;
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private PlayerShards playerShards;
+    private MockMvc mockMvc;
+
+    // Every shard starts as a copy of the unsharded database and is split once, before the application starts.
+    @BeforeClass
+    public static void splitShards() throws Exception {
+        String[] urls = URLS.split(",");
+        for (int shard = 0; shard < urls.length; shard++) {
+            ShardSplit.split(new DriverManagerDataSource(urls[shard], "sa", ""), shard, urls.length);
+        }
+    }
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(((request, response, chain) -> {
+                    response.setCharacterEncoding("UTF-8");
+                    chain.doFilter(request, response);
+                }))
+                .build();
+    }
+
+    //test1
+    @Test
+    public void everyShardHoldsItsOwnResidueClass() {
+        assertEquals("Неверное число шардов", SHARDS, playerShards.size());
+        int total = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Player> players = playerShards.shard(shard).getRepository().findAll();
+            for (Player player : players) {
+                assertEquals("Игрок " + player.getId() + " лежит не на своём шарде", shard,
+                        (int) (player.getId() % SHARDS));
+            }
+            total += players.size();
+        }
+        assertEquals("Игроки потерялись при разбиении на шарды", testsHelper.getAllPlayers().size(), total);
+    }
+
+    //test2
+    @Test
+    public void getAllMergesShardsInGlobalOrder() throws Exception {
+        String content = mockMvc.perform(get("/rest/players?order=LEVEL&pageNumber=2&pageSize=7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers().stream()
+                .sorted(Comparator.<PlayerInfoTest>comparingInt(player -> player.level)
+                        .thenComparingLong(player -> player.id))
+                .skip(14).limit(7).collect(Collectors.toList());
+        assertEquals("Неверный результат GET /rest/players на шардах", expected,
+                mapper.readValue(content, typeReference));
+    }
+
+    //test3
+    @Test
+    public void countFansOutToAllShards() throws Exception {
+        String content = mockMvc.perform(get("/rest/players/count?name=а&minExperience=0"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверный результат GET /rest/players/count на шардах",
+                testsHelper.getPlayerInfosByName("а", testsHelper.getAllPlayers()).size(),
+                Integer.parseInt(content));
+    }
+
+    //test4
+    @Test
+    public void singlePlayerRequestsGoToOwningShard() throws Exception {
+        String created = mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readValue(created, PlayerInfoTest.class).id;
+        int owner = playerShards.shardOf(id);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals("Игрок " + id + " должен быть только на шарде " + owner, shard == owner,
+                    playerShards.shard(shard).getRepository().existsById(id));
+        }
+
+        mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Шардовый\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Обновление не дошло до шарда", "Шардовый",
+                playerShards.shard(owner).getRepository().findById(id).map(Player::getName).orElse(null));
+
+        mockMvc.perform(delete("/rest/players/" + id))
+                .andExpect(status().isOk());
+        assertTrue("Игрок не удалён с шарда", !playerShards.shard(owner).getRepository().existsById(id));
+    }
+
+    //test5
+    @Test
+    public void bulkStatementsReachEveryOwningShard() throws Exception {
+        List<PlayerInfoTest> matching = testsHelper.getPlayerInfosByName("а", testsHelper.getAllPlayers());
+        String changed = mockMvc.perform(post("/rest/players/bulk?action=GRANT_EXPERIENCE&delta=1&name=а"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Неверное число игроков на шардах", String.valueOf(matching.size()), changed);
+        for (PlayerInfoTest player : matching) {
+            assertEquals("Опыт не изменился на шарде", player.experience + 1,
+                    playerShards.shard(playerShards.shardOf(player.id)).getRepository().findById(player.id)
+                            .map(Player::getExperience).orElse(null));
+        }
+
+        mockMvc.perform(post("/rest/players/bulk?action=GRANT_EXPERIENCE&delta=-1&name=а"))
+                .andExpect(status().isOk());
+    }
+
+    //test6
+    @Test
+    public void unsplitShardsAreFoundAndSplitOnlyOnRequest() throws Exception {
+        DriverManagerDataSource copy = new DriverManagerDataSource("jdbc:h2:mem:unsplit;DB_CLOSE_DELAY=-1", "sa", "");
+        int own = (int) testsHelper.getAllPlayers().stream().filter(player -> player.id % SHARDS == 1).count();
+        assertEquals("Неверное число удалённых игроков", testsHelper.getAllPlayers().size() - own,
+                ShardSplit.split(copy, 1, SHARDS));
+        assertEquals("После разбиения чужих игроков быть не должно", 0, ShardSplit.misplaced(copy, 1, SHARDS));
+
+        new JdbcTemplate(copy).update("INSERT INTO player (id, name) VALUES (3, 'Чужой')");
+        assertEquals("Чужой игрок должен быть замечен", 1, ShardSplit.misplaced(copy, 1, SHARDS));
+    }
+
+    //test7
+    @Test
+    public void namesAreMergedInTheShardsCollation() throws Exception {
+        // Names compare as in MySQL's case-insensitive collation, which game.planner.binary-collation=false assumes.
+        alterNames("VARCHAR_IGNORECASE(12)");
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (String name : new String[]{"кварцв", "КВАРЦб", "кварца"}) {
+                String created = mockMvc.perform(post("/rest/players/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestsHelper.NORMAL_JSON.replace("Амарылис", name)))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                ids.add(mapper.readValue(created, PlayerInfoTest.class).id);
+            }
+            assertEquals("Игроки должны попасть на разные шарды", (long) SHARDS,
+                    ids.stream().map(playerShards::shardOf).distinct().count());
+
+            String content = mockMvc.perform(get("/rest/players?name=кварц&order=NAME&pageSize=10"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<String> names = mapper.readValue(content, typeReference).stream()
+                    .map(player -> player.name)
+                    .collect(Collectors.toList());
+            assertEquals("Имена на шардах должны сливаться без учёта регистра",
+                    Arrays.asList("кварца", "КВАРЦб", "кварцв"), names);
+        } finally {
+            for (Long id : ids) {
+                mockMvc.perform(delete("/rest/players/" + id));
+            }
+            alterNames("VARCHAR(12)");
+        }
+    }
+
+    //test8
+    @Test
+    public void specificationsExamplesAndBatchesAreRoutedAcrossShards() {
+        PlayerRepository router = playerShards.router();
+        Specification<Player> named = (root, query, builder) -> builder.like(root.get("name"), "%а%");
+        List<PlayerInfoTest> matching = testsHelper.getPlayerInfosByName("а", testsHelper.getAllPlayers());
+        List<Long> expected = matching.stream().map(player -> player.id).sorted().collect(Collectors.toList());
+
+        assertEquals("Неверный count(Specification) на шардах", (long) matching.size(), router.count(named));
+        assertEquals("Неверный findAll(Specification) на шардах", expected, router.findAll(named).stream()
+                .map(Player::getId).sorted().collect(Collectors.toList()));
+        assertEquals("Неверный findAll(Specification, Sort) на шардах", expected,
+                router.findAll(named, Sort.by("id")).stream().map(Player::getId).collect(Collectors.toList()));
+        assertEquals("Неверный findAll(Specification, Pageable) на шардах", expected.subList(3, 6),
+                router.findAll(named, PageRequest.of(1, 3, Sort.by("id"))).getContent().stream()
+                        .map(Player::getId).collect(Collectors.toList()));
+
+        Player probe = new Player();
+        probe.setName(matching.get(0).name);
+        assertEquals("Неверный findOne(Example) на шардах", matching.get(0).id,
+                router.findOne(Example.of(probe)).map(Player::getId).orElse(null));
+        assertTrue("Неверный exists(Example) на шардах", router.exists(Example.of(probe)));
+
+        List<Player> batch = new ArrayList<>();
+        for (int i = 0; i < SHARDS + 1; i++) {
+            Player player = new Player();
+            player.setName("Пакет" + i);
+            batch.add(player);
+        }
+        List<Player> saved = router.saveAll(batch);
+        try {
+            assertEquals("saveAll должен вернуть игроков в переданном порядке", Arrays.asList("Пакет0", "Пакет1",
+                    "Пакет2", "Пакет3"), saved.stream().map(Player::getName).collect(Collectors.toList()));
+            for (Player player : saved) {
+                assertTrue("Игрок " + player.getId() + " не сохранён на своём шарде", playerShards
+                        .shard(playerShards.shardOf(player.getId())).getRepository().existsById(player.getId()));
+            }
+        } finally {
+            router.deleteInBatch(saved);
+        }
+        for (Player player : saved) {
+            assertTrue("Игрок не удалён с шарда", !router.existsById(player.getId()));
+        }
+    }
+
+    private static void alterNames(String type) {
+        for (String url : URLS.split(",")) {
+            new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""))
+                    .execute("ALTER TABLE player ALTER COLUMN name " + type);
+        }
+    }
+}
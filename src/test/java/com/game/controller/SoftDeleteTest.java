@@ -0,0 +1,84 @@
+package com.game.controller;
+
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import com.game.service.PlayerService;
+import com.game.service.TombstonePurger;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "game.soft-delete.enabled=true",
+        "game.soft-delete.purge-rows-per-second=0"
+})
+public class SoftDeleteTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    //test1
+    @Test
+    public void deleteIsOneUpdateAndEveryReadSkipsTheTombstone() throws Exception {
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk());
+        perform(delete("/rest/players/1"), QueryBudget.none().andUpdates(1))
+                .andExpect(status().isOk());
+
+        assertEquals("Игрок должен остаться в таблице до очистки", true,
+                jdbcTemplate.queryForObject("SELECT deleted FROM player WHERE id = 1", Boolean.class));
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/rest/players/1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Призрак\"}"))
+                .andExpect(status().isNotFound());
+        assertEquals("Удаленный игрок не должен считаться", "39", content("/rest/players/count"));
+        assertEquals("Удаленный игрок не должен находиться по имени", "[]", content("/rest/players?name=Ниус"));
+        assertEquals("Удаленный игрок не должен находиться поиском по id", "[{\"id\":1,\"found\":false,\"player\":null}]",
+                mockMvc.perform(post("/rest/players/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1]"))
+                        .andReturn().getResponse().getContentAsString());
+    }
+
+    //test2
+    @Test
+    public void bulkDeletesLeaveTombstonesForThePurger() throws Exception {
+        int elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).size();
+        assertEquals("Неверное число удаленных игроков", String.valueOf(elves),
+                mockMvc.perform(post("/rest/players/bulk?action=DELETE&race=ELF"))
+                        .andReturn().getResponse().getContentAsString());
+
+        context.getBean(PlayerService.class).reloadListeners();
+        assertEquals("Удаленные игроки не должны загружаться", "0", content("/rest/players/count?race=ELF"));
+        assertEquals("Неверное число надгробий", elves, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM player WHERE deleted = TRUE", Integer.class));
+
+        assertEquals("Очистка должна удалить все надгробия", elves, context.getBean(TombstonePurger.class).purge());
+        assertEquals("Неверное число оставшихся строк", 40 - elves,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player", Integer.class));
+    }
+
+    private String content(String url) throws Exception {
+        return mockMvc.perform(get(url)).andReturn().getResponse().getContentAsString();
+    }
+}
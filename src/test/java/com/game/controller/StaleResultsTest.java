@@ -0,0 +1,71 @@
+package com.game.controller;
+
+import com.game.controller.utils.QueryBudget;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {
+        "game.breaker.window=2",
+        "game.breaker.min-calls=2",
+        "game.breaker.failure-rate=1",
+        "game.breaker.open-ms=600000"})
+public class StaleResultsTest extends AbstractTest {
+    private static final String STALE = "110 - \"Response is Stale\"";
+
+    private DataSource dataSource;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    //test1
+    @Test
+    public void lastKnownGoodResultsAreServedWhileDatabaseIsDown() throws Exception {
+        String fresh = mockMvc.perform(get("/rest/players?race=ELF&pageSize=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.WARNING))
+                .andReturn().getResponse().getContentAsString();
+
+        // While one session holds the database exclusively, nobody else can connect to it.
+        try (Connection exclusive = dataSource.getConnection(); Statement statement = exclusive.createStatement()) {
+            statement.execute("SET EXCLUSIVE 1");
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(get("/rest/players?race=ELF&pageSize=5"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string(HttpHeaders.WARNING, STALE))
+                        .andExpect(content().string(fresh));
+            }
+
+            perform(get("/rest/players?race=ELF&pageSize=5"), QueryBudget.none())
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.WARNING, STALE))
+                    .andExpect(header().exists(HttpHeaders.AGE))
+                    .andExpect(content().string(fresh));
+            perform(get("/rest/players?race=HOBBIT"), QueryBudget.none())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+            perform(get("/rest/players/5"), QueryBudget.none())
+                    .andExpect(status().isServiceUnavailable());
+            statement.execute("SET EXCLUSIVE 0");
+        }
+
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Цепь должна быть разомкнута", metrics.contains("player_repository_circuit_state 2"));
+        assertTrue("Нет счетчика устаревших ответов",
+                metrics.contains("player_query_stale_total{query=\"filter\"} 3"));
+    }
+}
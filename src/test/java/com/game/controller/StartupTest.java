@@ -0,0 +1,64 @@
+package com.game.controller;
+
+import com.game.config.AppConfig;
+import com.game.config.WebConfig;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StartupTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void startupReportListsPhasesAndBeans() throws Exception {
+        String report = mockMvc.perform(get("/startup"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("В отчете нет фазы создания синглтонов", report.contains("Eager singletons"));
+        assertTrue("В отчете нет времени создания бинов", report.contains("playerService"));
+    }
+
+    //test2
+    @Test
+    public void fastBootServesRequestsWithoutDuplicateBeans() throws Exception {
+        MockServletContext servletContext = new MockServletContext();
+        AnnotationConfigWebApplicationContext root = new AnnotationConfigWebApplicationContext();
+        root.setServletContext(servletContext);
+        root.getEnvironment().setActiveProfiles("dev", "fast-boot");
+        root.register(AppConfig.class);
+        root.refresh();
+        servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, root);
+
+        AnnotationConfigWebApplicationContext web = new AnnotationConfigWebApplicationContext();
+        web.setParent(root);
+        web.setServletContext(servletContext);
+        web.getEnvironment().setActiveProfiles("dev", "fast-boot");
+        web.register(WebConfig.class);
+        web.refresh();
+        try {
+            assertEquals("Контроллеры попали в корневой контекст", 0,
+                    root.getBeanNamesForAnnotation(Controller.class).length);
+            assertEquals("Сервис создан повторно в веб-контексте", 0,
+                    web.getBeanFactory().getBeanNamesForType(PlayerService.class, true, false).length);
+
+            MockMvc fastBoot = MockMvcBuilders.webAppContextSetup(web).build();
+            fastBoot.perform(get("/rest/players/count"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("40"));
+        } finally {
+            web.close();
+            root.close();
+        }
+    }
+}
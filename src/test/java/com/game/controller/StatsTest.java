@@ -0,0 +1,153 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.service.PlayerService;
+import com.game.service.StatsReconciler;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StatsTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void statsCellsAddUpToAllPlayers() throws Exception {
+        JsonNode cells = readStats(10);
+
+        int total = 0;
+        for (JsonNode cell : cells) {
+            total += cell.get("count").asInt();
+            assertEquals("Неверная ширина диапазона уровней", 9,
+                    cell.get("maxLevel").asInt() - cell.get("minLevel").asInt());
+        }
+        assertEquals("Сумма ячеек не равна числу игроков", testsHelper.getAllPlayers().size(), total);
+    }
+
+    //test2
+    @Test
+    public void statsFollowUpdatesAndDeletes() throws Exception {
+        PlayerInfoTest player = testsHelper.getPlayerInfosById(3);
+        int before = countCell(readStats(1), player.race.name(), player.profession.name(), player.banned,
+                player.level);
+
+        mockMvc.perform(post("/rest/players/3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\": " + !player.banned + "}"))
+                .andExpect(status().isOk());
+        JsonNode cells = readStats(1);
+        assertEquals("Ячейка не уменьшилась после изменения", before - 1,
+                countCell(cells, player.race.name(), player.profession.name(), player.banned, player.level));
+        assertEquals("Ячейка не увеличилась после изменения", 1,
+                countCell(cells, player.race.name(), player.profession.name(), !player.banned, player.level));
+
+        mockMvc.perform(delete("/rest/players/3"))
+                .andExpect(status().isOk());
+        assertEquals("Ячейка не уменьшилась после удаления", 0, countCell(readStats(1), player.race.name(),
+                player.profession.name(), !player.banned, player.level));
+    }
+
+    //test3
+    @Test
+    public void countWithLevelRangeIsAnsweredFromStats() throws Exception {
+        String content = perform(get("/rest/players/count?banned=false&minLevel=10&maxLevel=30"),
+                QueryBudget.none())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int expected = testsHelper.getPlayerInfosByMaxLevel(30, testsHelper.getPlayerInfosByMinLevel(10,
+                testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()))).size();
+        assertEquals("Неверный результат GET /rest/players/count", expected, Integer.parseInt(content));
+    }
+
+    //test4
+    @Test
+    public void countsAreReconciledWithChangesMadeBehindTheApplication() throws Exception {
+        int banned = testsHelper.getPlayerInfosByBaned(true, testsHelper.getAllPlayers()).size();
+        PlayerInfoTest player = testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()).get(0);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE player SET banned = TRUE WHERE id = " + player.id);
+        }
+        assertEquals("Изменение в обход приложения не видно без сверки", banned, countBanned());
+
+        StatsReconciler reconciler = context.getBean(StatsReconciler.class);
+        assertEquals("Сверка должна найти расхождение на одного игрока в двух ячейках", 2L, reconciler.reconcile());
+        assertEquals("После сверки число должно совпасть с базой", banned + 1, countBanned());
+        assertEquals("Повторная сверка не должна найти расхождений", 0L, reconciler.reconcile());
+    }
+
+    //test5
+    @Test
+    public void reconcilingBetweenACommitAndItsListenersCountsTheChangeOnce() throws Exception {
+        int banned = testsHelper.getPlayerInfosByBaned(true, testsHelper.getAllPlayers()).size();
+        PlayerInfoTest player = testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()).get(0);
+        StatsReconciler reconciler = context.getBean(StatsReconciler.class);
+        PlayerService playerService = context.getBean(PlayerService.class);
+        Player update = new Player();
+        update.setBanned(true);
+
+        // Registered before the service's own synchronization, so the sweep runs after the commit but before
+        // the listeners have applied the change to the counts.
+        AtomicLong drift = new AtomicLong(Long.MIN_VALUE);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    drift.set(reconciler.reconcile());
+                }
+            });
+            return playerService.updatePlayer(player.id, update);
+        });
+
+        assertEquals("Сверка во время применения изменения должна быть пропущена", -1L, drift.get());
+        assertEquals("Изменение не должно учитываться дважды", banned + 1, countBanned());
+        assertEquals("После изменения сверка не должна найти расхождений", 0L, reconciler.reconcile());
+    }
+
+    private int countBanned() throws Exception {
+        return Integer.parseInt(perform(get("/rest/players/count?banned=true"), QueryBudget.none())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode readStats(int levelBucket) throws Exception {
+        String content = mockMvc.perform(get("/rest/players/stats?levelBucket=" + levelBucket))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+
+    private int countCell(JsonNode cells, String race, String profession, boolean banned, int level) {
+        for (JsonNode cell : cells) {
+            if (cell.get("race").asText().equals(race) && cell.get("profession").asText().equals(profession)
+                    && cell.get("banned").asBoolean() == banned && cell.get("minLevel").asInt() == level) {
+                return cell.get("count").asInt();
+            }
+        }
+        return 0;
+    }
+}
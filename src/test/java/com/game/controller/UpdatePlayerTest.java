@@ -3,6 +3,7 @@ package com.game.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.game.entity.Profession;
 import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.QueryBudget;
 import com.game.controller.utils.TestsHelper;
 import com.game.entity.Race;
 import org.junit.Test;
@@ -32,9 +33,9 @@ public class UpdatePlayerTest extends AbstractTest {
     //test2
     @Test
     public void updatePlayerNotExistTest() throws Exception {
-        mockMvc.perform(post("/rest/players/415")
+        perform(post("/rest/players/415")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(TestsHelper.NORMAL_JSON))
+                .content(TestsHelper.NORMAL_JSON), QueryBudget.selects(1))
                 .andExpect(status().isNotFound());
     }
 
@@ -106,9 +107,9 @@ public class UpdatePlayerTest extends AbstractTest {
     public void updatePlayerEmptyBodyTest() throws Exception {
         PlayerInfoTest expected = testsHelper.getPlayerInfosById(17);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/players/17")
+        ResultActions resultActions = perform(post("/rest/players/17")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content("{}"))
+                .content("{}"), QueryBudget.selects(1).andEntitiesLoaded(1))
                 .andExpect(status().isOk());
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
@@ -147,9 +148,10 @@ public class UpdatePlayerTest extends AbstractTest {
         PlayerInfoTest expected = new PlayerInfoTest(playerInfoTest.id, newName, playerInfoTest.title, playerInfoTest.race, playerInfoTest.profession,
                 playerInfoTest.birthday, newBanned, newExperience, 6, 300);
 
-        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/rest/players/" + playerInfoTest.id)
+        ResultActions resultActions = perform(MockMvcRequestBuilders.post("/rest/players/" + playerInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(String.format(TestsHelper.JSON_SKELETON, newName, newBanned, newExperience)))
+                .content(String.format(TestsHelper.JSON_SKELETON, newName, newBanned, newExperience)),
+                QueryBudget.selects(1).andUpdates(1).andEntitiesLoaded(1))
                 .andExpect(status().isOk());
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
@@ -171,9 +173,10 @@ public class UpdatePlayerTest extends AbstractTest {
         PlayerInfoTest expected = new PlayerInfoTest(playerInfoTest.id, playerInfoTest.name, newTitle, newRace, newProfession, newBirthday,
                 playerInfoTest.banned, playerInfoTest.experience, playerInfoTest.level, playerInfoTest.untilNextLevel);
 
-        ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/rest/players/" + playerInfoTest.id)
+        ResultActions resultActions = perform(MockMvcRequestBuilders.post("/rest/players/" + playerInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(String.format(TestsHelper.JSON_SKELETON_2, newTitle, newRace, newProfession, newBirthday)))
+                .content(String.format(TestsHelper.JSON_SKELETON_2, newTitle, newRace, newProfession, newBirthday)),
+                QueryBudget.selects(1).andUpdates(1).andEntitiesLoaded(1))
                 .andExpect(status().isOk());
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
@@ -181,4 +184,4 @@ public class UpdatePlayerTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/players/{id} игрок должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.game.controller;
+
+import com.game.metrics.MetricsRegistry;
+import com.game.warmup.WarmUp;
+import org.junit.Test;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@TestPropertySource(properties = {
+        "game.warmup.requests=/rest/players?pageSize=5&order=LEVEL,/rest/players/count?race=ELF,/rest/players/1",
+        "game.warmup.min-rounds=20",
+        "game.warmup.max-rounds=2000",
+        "game.warmup.window=5",
+        "game.warmup.tolerance=0.5"})
+public class WarmUpTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void readyOnlyAfterWarmUp() throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        int status;
+        while ((status = mockMvc.perform(get("/ready")).andReturn().getResponse().getStatus()) != 200) {
+            assertTrue("Пока идет прогрев, ожидался статус 503", status == 503);
+            if (System.currentTimeMillis() > deadline) {
+                fail("Прогрев не завершился за 30 секунд");
+            }
+            Thread.sleep(20);
+        }
+
+        String metrics = mockMvc.perform(get("/metrics"))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Ожидалась готовность в метриках", metrics.contains("app_ready 1"));
+        int rounds = Integer.parseInt(metrics.replaceAll("(?s).*\nwarmup_rounds (\\d+)\n.*", "$1"));
+        assertTrue("Прогрев закончился раньше минимального числа раундов", rounds >= 20);
+        assertTrue("Запросы прогрева завершились ошибками", !metrics.contains("warmup_errors_total"));
+    }
+
+    //test2
+    @Test
+    public void unknownRequestIsRejected() {
+        WarmUp warmUp = new WarmUp(new String[]{"/rest/nowhere"}, 1, 1, 1, 0, 1000, new MetricsRegistry());
+        try {
+            warmUp.onApplicationEvent(new ContextRefreshedEvent(context));
+            fail("Ожидалась ошибка для запроса без обработчика");
+        } catch (IllegalArgumentException e) {
+            assertTrue("Неожиданное сообщение: " + e.getMessage(), e.getMessage().contains("/rest/nowhere"));
+        }
+        assertTrue("Без прогрева приложение не должно быть готово", !warmUp.isReady());
+    }
+}
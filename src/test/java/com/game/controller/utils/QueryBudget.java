@@ -0,0 +1,58 @@
+package com.game.controller.utils;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class QueryBudget {
+    private final Map<StatementCounter.Kind, Integer> statements = new EnumMap<>(StatementCounter.Kind.class);
+    private int entitiesLoaded = Integer.MAX_VALUE;
+
+    private QueryBudget() {
+        for (StatementCounter.Kind kind : StatementCounter.Kind.values()) {
+            statements.put(kind, 0);
+        }
+    }
+
+    public static QueryBudget none() {
+        return new QueryBudget();
+    }
+
+    public static QueryBudget selects(int max) {
+        return new QueryBudget().andSelects(max);
+    }
+
+    public QueryBudget andSelects(int max) {
+        statements.put(StatementCounter.Kind.SELECT, max);
+        return this;
+    }
+
+    public QueryBudget andInserts(int max) {
+        statements.put(StatementCounter.Kind.INSERT, max);
+        return this;
+    }
+
+    public QueryBudget andUpdates(int max) {
+        statements.put(StatementCounter.Kind.UPDATE, max);
+        return this;
+    }
+
+    public QueryBudget andDeletes(int max) {
+        statements.put(StatementCounter.Kind.DELETE, max);
+        return this;
+    }
+
+    public QueryBudget andEntitiesLoaded(int max) {
+        entitiesLoaded = max;
+        return this;
+    }
+
+    public void verify(String request, StatementCounter counter, int loaded) {
+        statements.forEach((kind, max) -> assertTrue(
+                String.format("Запрос %s выполнил %d %s при бюджете %d", request, counter.get(kind), kind, max),
+                counter.get(kind) <= max));
+        assertTrue(String.format("Запрос %s загрузил %d сущностей при бюджете %d", request, loaded, entitiesLoaded),
+                loaded <= entitiesLoaded);
+    }
+}
@@ -0,0 +1,102 @@
+package com.game.controller.utils;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StatementCounter implements BeanPostProcessor {
+
+    public enum Kind {
+        SELECT, INSERT, UPDATE, DELETE, OTHER
+    }
+
+    private final Map<Kind, AtomicInteger> counts = new EnumMap<>(Kind.class);
+
+    public StatementCounter() {
+        for (Kind kind : Kind.values()) {
+            counts.put(kind, new AtomicInteger());
+        }
+    }
+
+    public void reset() {
+        counts.values().forEach(count -> count.set(0));
+    }
+
+    public int get(Kind kind) {
+        return counts.get(kind).get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            return proxy(DataSource.class, bean, (result, method, args) ->
+                    method.getName().equals("getConnection")
+                            ? proxy(Connection.class, result, this::onConnectionCall)
+                            : result);
+        }
+        return bean;
+    }
+
+    private Object onConnectionCall(Object result, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "prepareStatement":
+            case "prepareCall":
+                count((String) args[0]);
+                return result;
+            case "createStatement":
+                return proxy(Statement.class, result, (statementResult, statementMethod, statementArgs) -> {
+                    if (statementMethod.getName().startsWith("execute") && statementArgs != null
+                            && statementArgs.length > 0 && statementArgs[0] instanceof String) {
+                        count((String) statementArgs[0]);
+                    }
+                    return statementResult;
+                });
+            default:
+                return result;
+        }
+    }
+
+    private void count(String sql) {
+        String verb = sql.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        Kind kind;
+        try {
+            kind = Kind.valueOf(verb);
+        } catch (IllegalArgumentException e) {
+            kind = Kind.OTHER;
+        }
+        counts.get(kind).incrementAndGet();
+    }
+
+    private interface Wrapper {
+        Object wrap(Object result, Method method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Wrapper wrapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("equals") && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && args == null) {
+                return System.identityHashCode(proxy);
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            return result == null ? null : wrapper.wrap(result, method, args);
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,88 @@
+package com.game.index;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertFalse;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class PlayerSampleTest {
+    private final PlayerSample sample = new PlayerSample(4096, 64);
+
+    //test1
+    @Test
+    public void broadFiltersAreEstimatedWithinTheErrorBound() {
+        List<Player> players = players(100_000);
+        sample.reload(players);
+
+        assertWithinBound(players, player -> player.getRace() == Race.ELF);
+        assertWithinBound(players, player -> player.getExperience() >= 1_000_000 && !player.getBanned());
+        assertWithinBound(players, player -> player.getTitle().contains("7"));
+
+        Optional<CountEstimate> selective = sample.estimate(Collections.singletonList(
+                player -> player.getName().equals("Игрок12345")));
+        assertFalse("Слишком избирательный фильтр не должен оцениваться", selective.isPresent());
+    }
+
+    //test2
+    @Test
+    public void smallTablesAreCountedExactlyAndChangesAreKept() {
+        List<Player> players = players(1_000);
+        sample.reload(players);
+        List<Predicate<Player>> elves = Collections.singletonList(player -> player.getRace() == Race.ELF);
+        long elfCount = players.stream().filter(player -> player.getRace() == Race.ELF).count();
+
+        CountEstimate exact = sample.estimate(elves).get();
+        assertTrue("Таблица меньше выборки должна считаться точно", exact.isExact());
+        assertEquals("Неверное количество эльфов", (int) elfCount, exact.getValue());
+
+        Player elf = new Player(players.get(0));
+        elf.setId(1_001L);
+        elf.setRace(Race.ELF);
+        sample.onSaved(null, elf);
+        Player human = new Player(elf);
+        human.setRace(Race.HUMAN);
+        Player deleted = players.stream().filter(player -> player.getRace() == Race.ELF).findFirst().get();
+        sample.onDeleted(deleted);
+        assertEquals("Вставка и удаление должны учитываться", (int) elfCount, sample.estimate(elves).get().getValue());
+        sample.onSaved(elf, human);
+        assertEquals("Изменение должно учитываться", (int) elfCount - 1, sample.estimate(elves).get().getValue());
+    }
+
+    private void assertWithinBound(List<Player> players, Predicate<Player> condition) {
+        long actual = players.stream().filter(condition).count();
+        CountEstimate estimate = sample.estimate(Collections.singletonList(condition)).get();
+        assertFalse("Оценка не должна быть точной", estimate.isExact());
+        assertTrue("Погрешность " + estimate.getErrorBound() + " слишком велика",
+                estimate.getErrorBound() < players.size() / 20);
+        assertTrue("Оценка " + estimate.getValue() + " не в пределах " + estimate.getErrorBound() + " от " + actual,
+                Math.abs(estimate.getValue() - actual) <= estimate.getErrorBound());
+    }
+
+    private static List<Player> players(int size) {
+        Random random = new Random(5);
+        List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Player player = new Player();
+            player.setId((long) i + 1);
+            player.setName("Игрок" + i);
+            player.setTitle("Титул" + random.nextInt(1_000));
+            player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+            player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+            player.setExperience(random.nextInt(10_000_001));
+            player.setBanned(random.nextInt(10) == 0);
+            players.add(player);
+        }
+        return players;
+    }
+}
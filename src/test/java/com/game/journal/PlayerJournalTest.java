@@ -0,0 +1,211 @@
+package com.game.journal;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.events.PlayerChange;
+import com.game.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class PlayerJournalTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final List<PlayerJournal> journals = new ArrayList<>();
+
+    @After
+    public void closeJournals() throws Exception {
+        for (PlayerJournal journal : journals) {
+            journal.destroy();
+        }
+    }
+
+    //test1
+    @Test
+    public void concurrentChangesShareSyncsAndReplayToTheLastState() throws Exception {
+        PlayerJournal journal = open(64 * 1024 * 1024);
+        Map<Long, Player> expected = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long firstId = t * 100L + 1;
+            Thread thread = new Thread(() -> {
+                for (int round = 0; round < 50; round++) {
+                    for (long id = firstId; id < firstId + 10; id++) {
+                        Player previous = expected.get(id);
+                        Player current = player(id, round);
+                        journal.onSaved(previous, current);
+                        expected.put(id, current);
+                    }
+                }
+                journal.onDeleted(expected.remove(firstId));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.flush();
+
+        assertEquals("Все изменения должны попасть в журнал", 8 * 50 * 10 + 8L, journal.lastSequence());
+        assertTrue("Изменения должны делить fsync", syncs() < journal.lastSequence());
+        assertSamePlayers(expected, journal.reader().rebuild());
+    }
+
+    //test2
+    @Test
+    public void segmentsRollOverAndReplayResumesAfterASequence() throws Exception {
+        PlayerJournal journal = open(512);
+        for (long id = 1; id <= 100; id++) {
+            journal.onSaved(null, player(id, 0));
+        }
+        journal.flush();
+
+        assertTrue("Журнал должен состоять из нескольких сегментов", segments().size() > 5);
+        List<Long> sequences = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        long last = journal.reader().replay(60, record -> {
+            sequences.add(record.getSequence());
+            ids.add(record.getChange().getId());
+        });
+        assertEquals("Неверная последняя запись", 100L, last);
+        assertEquals("Ожидались записи после 60-й", 40, sequences.size());
+        assertEquals("Неверная первая запись", 61L, sequences.get(0));
+        assertEquals("Неверный игрок первой записи", 61L, ids.get(0));
+    }
+
+    //test3
+    @Test
+    public void tornTailIsSkippedAndAReopenedJournalContinues() throws Exception {
+        PlayerJournal journal = open(64 * 1024 * 1024);
+        journal.onSaved(null, player(1, 0));
+        journal.onSaved(null, player(2, 0));
+        journal.flush();
+        journal.destroy();
+        journals.remove(journal);
+
+        // A crash in the middle of a write leaves a partial record behind.
+        Path segment = segments().get(0);
+        byte[] torn = new JournalRecord(3, 0, new PlayerChange(PlayerChange.Type.DELETED, 1L, null)).encode().array();
+        Files.write(segment, Arrays.copyOf(torn, 11), StandardOpenOption.APPEND);
+
+        PlayerJournal reopened = open(64 * 1024 * 1024);
+        assertEquals("Оборванная запись не должна учитываться", 2L, reopened.lastSequence());
+        reopened.onDeleted(player(2, 0));
+        reopened.flush();
+
+        List<JournalRecord> records = new ArrayList<>();
+        reopened.reader().replay(0, records::add);
+        assertEquals("Неверное число записей", 3, records.size());
+        assertEquals("Удаление должно получить следующий номер", 3L, records.get(2).getSequence());
+        assertEquals("Неверный тип записи", PlayerChange.Type.DELETED, records.get(2).getChange().getType());
+        assertEquals("Запись после перезапуска должна начать новый сегмент", 2, segments().size());
+        assertEquals("Неверное состояние после удаления", 1, reopened.reader().rebuild().size());
+    }
+
+    //test4
+    @Test
+    public void aBatchThatCannotBeWrittenLeavesACountedGap() throws Exception {
+        PlayerJournal journal = open(512);
+        journal.onSaved(null, player(1, 0));
+        journal.flush();
+
+        // Without its directory the journal cannot open the next segment, neither at first nor on the retry.
+        Path directory = folder.getRoot().toPath();
+        Path aside = directory.resolveSibling(directory.getFileName() + "-aside");
+        Files.move(directory, aside);
+        for (long id = 2; id <= 20; id++) {
+            journal.onSaved(null, player(id, 0));
+        }
+        journal.flush();
+        long lost = failures();
+        assertTrue("Потерянные изменения должны быть посчитаны", lost > 0);
+
+        Files.move(aside, directory);
+        journal.onSaved(null, player(21, 0));
+        journal.flush();
+        assertEquals("Новое изменение не должно занять номера потерянных", 21L, journal.lastSequence());
+        List<Long> sequences = new ArrayList<>();
+        journal.reader().replay(0, record -> sequences.add(record.getSequence()));
+        // A failed batch may have got part of its records to disk before the failure, so lost is an upper bound.
+        assertTrue("Записано должно быть все, кроме потерянного", sequences.size() >= 21 - lost);
+        assertEquals("Номера записей не должны повторяться", sequences.size(),
+                (int) sequences.stream().distinct().count());
+    }
+
+    private PlayerJournal open(long segmentBytes) throws IOException {
+        // A small queue, so that the concurrent writers of test1 also wait for room in it.
+        PlayerJournal journal = new PlayerJournal(metricsRegistry, true, folder.getRoot().getPath(), segmentBytes, 64,
+                16);
+        journals.add(journal);
+        return journal;
+    }
+
+    private long syncs() {
+        return metricsRegistry.counter("player_journal_syncs_total", "Journal fsyncs").get();
+    }
+
+    private long failures() {
+        return metricsRegistry.counter("player_journal_failures_total",
+                "Player changes lost because the journal write failed").get();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(file -> file.toString().endsWith(".journal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void assertSamePlayers(Map<Long, Player> expected, Map<Long, Player> actual) {
+        assertEquals("Неверные игроки после воспроизведения", expected.keySet(), actual.keySet());
+        expected.forEach((id, player) -> {
+            Player replayed = actual.get(id);
+            assertTrue("Игрок " + id + " восстановлен неверно", Objects.equals(player.getName(), replayed.getName())
+                    && Objects.equals(player.getTitle(), replayed.getTitle())
+                    && player.getRace() == replayed.getRace() && player.getProfession() == replayed.getProfession()
+                    && Objects.equals(player.getExperience(), replayed.getExperience())
+                    && Objects.equals(player.getLevel(), replayed.getLevel())
+                    && Objects.equals(player.getUntilNextLevel(), replayed.getUntilNextLevel())
+                    && Objects.equals(player.getBirthday(), replayed.getBirthday())
+                    && Objects.equals(player.getBanned(), replayed.getBanned())
+                    && Objects.equals(player.getVersion(), replayed.getVersion()));
+        });
+    }
+
+    private static Player player(long id, int round) {
+        Player player = new Player();
+        player.setId(id);
+        player.setName("Игрок" + id);
+        player.setTitle(round % 2 == 0 ? "Титул " + round : null);
+        player.setRace(Race.values()[(int) (id % Race.values().length)]);
+        player.setProfession(Profession.values()[round % Profession.values().length]);
+        player.setExperience(round * 1000);
+        player.setLevel(round);
+        player.setUntilNextLevel(100);
+        player.setBirthday(new Date(946_684_800_000L + id * 86_400_000L));
+        player.setBanned(round % 3 == 0);
+        player.setVersion((long) round);
+        return player;
+    }
+}
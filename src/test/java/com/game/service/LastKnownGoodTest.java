@@ -0,0 +1,125 @@
+package com.game.service;
+
+import com.game.metrics.MetricsRegistry;
+import com.game.repository.CircuitOpenException;
+import com.game.repository.RepositoryCircuitBreaker;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+
+public class LastKnownGoodTest {
+    private static final List<String> KEY = Collections.singletonList("EXPERIENCE");
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile RuntimeException failure;
+    private volatile long delayMs;
+    private LastKnownGood lastKnownGood;
+
+    @After
+    public void shutdown() {
+        if (lastKnownGood != null) {
+            lastKnownGood.destroy();
+        }
+    }
+
+    //test1
+    @Test
+    public void breakerOpensOnFailuresAndClosesAfterSuccessfulTrial() throws Exception {
+        RepositoryCircuitBreaker breaker = new RepositoryCircuitBreaker(4, 4, 0.5, 10_000, 50, metricsRegistry);
+        Supplier<String> database = guarded(breaker);
+
+        database.get();
+        failure = new DataIntegrityViolationException("duplicate");
+        expectFailure(database, DataIntegrityViolationException.class);
+        expectFailure(database, DataIntegrityViolationException.class);
+        assertTrue("Ошибки вызывающего не должны размыкать цепь", breaker.isClosed());
+
+        failure = new DataAccessResourceFailureException("connection refused");
+        expectFailure(database, DataAccessResourceFailureException.class);
+        expectFailure(database, DataAccessResourceFailureException.class);
+        assertTrue("Цепь должна разомкнуться", !breaker.isClosed());
+        int before = calls.get();
+        expectFailure(database, CircuitOpenException.class);
+        assertEquals("Разомкнутая цепь не должна обращаться к базе", before, calls.get());
+
+        Thread.sleep(60);
+        failure = null;
+        assertEquals("Пробный вызов должен пройти", "fresh", database.get());
+        assertTrue("После успешного пробного вызова цепь должна замкнуться", breaker.isClosed());
+    }
+
+    //test2
+    @Test
+    public void slowCallsOpenBreakerAndLastKnownGoodIsServedStale() throws Exception {
+        RepositoryCircuitBreaker breaker = new RepositoryCircuitBreaker(2, 2, 1, 20, 60_000, metricsRegistry);
+        lastKnownGood = new LastKnownGood(60_000, 16, breaker, metricsRegistry);
+        Supplier<String> database = guarded(breaker);
+
+        QueryResult<String> fresh = lastKnownGood.serve("filter", KEY, database);
+        assertTrue("Первый ответ должен быть свежим", !fresh.isStale());
+        delayMs = 30;
+        lastKnownGood.serve("filter", KEY, database);
+        lastKnownGood.serve("filter", KEY, database);
+        assertTrue("Медленные вызовы должны разомкнуть цепь", !breaker.isClosed());
+
+        QueryResult<String> stale = lastKnownGood.serve("filter", KEY, database);
+        assertTrue("Ожидался устаревший ответ", stale.isStale());
+        assertEquals("Ожидался последний известный результат", "fresh", stale.getValue());
+        try {
+            lastKnownGood.serve("filter", Collections.singletonList("LEVEL"), database);
+            fail("Без сохраненного результата ожидалась ошибка");
+        } catch (CircuitOpenException expected) {
+            // no last-known-good result to fall back to
+        }
+        String revalidation = "player_query_revalidations_total{query=\"filter\",result=\"failed\"} 1";
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!metricsRegistry.scrape().contains(revalidation) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Ожидалось одно фоновое обновление", metricsRegistry.scrape().contains(revalidation));
+    }
+
+    private Supplier<String> guarded(RepositoryCircuitBreaker breaker) {
+        Supplier<String> database = () -> {
+            calls.incrementAndGet();
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return "fresh";
+        };
+        ProxyFactory proxyFactory = new ProxyFactory(database);
+        proxyFactory.addInterface(Supplier.class);
+        proxyFactory.addAdvice(breaker);
+        @SuppressWarnings("unchecked")
+        Supplier<String> proxy = (Supplier<String>) proxyFactory.getProxy();
+        return proxy;
+    }
+
+    private static void expectFailure(Supplier<String> database, Class<? extends RuntimeException> expected) {
+        try {
+            database.get();
+            fail("Ожидалась ошибка " + expected.getSimpleName());
+        } catch (RuntimeException e) {
+            assertEquals("Неожиданная ошибка", expected, e.getClass());
+        }
+    }
+}
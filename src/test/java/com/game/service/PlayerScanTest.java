@@ -0,0 +1,92 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Race;
+import com.game.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class PlayerScanTest {
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final PlayerScan parallel = new PlayerScan(4, 100, 0, metricsRegistry);
+    private final PlayerScan sequential = new PlayerScan(4, 100, Long.MAX_VALUE, metricsRegistry);
+
+    @After
+    public void shutdown() {
+        parallel.destroy();
+        sequential.destroy();
+    }
+
+    //test1
+    @Test
+    public void parallelScanMatchesSequentialStream() {
+        List<Player> players = players(2_345);
+        List<Predicate<Player>> filters = Arrays.asList(
+                player -> player.getRace() != Race.ORC,
+                player -> player.getLevel() >= 3);
+        for (PlayerOrder order : PlayerOrder.values()) {
+            Comparator<Player> comparator = PlayerScan.comparator(order);
+            List<Player> expected = players.stream()
+                    .filter(filters.get(0).and(filters.get(1)))
+                    .sorted(comparator)
+                    .collect(Collectors.toList());
+            for (int limit : new int[]{0, 1, 7, 250, expected.size(), players.size() + 1}) {
+                List<Player> first = expected.subList(0, Math.min(limit, expected.size()));
+                PlayerScan.Matches fromSegments = parallel.scan(players, filters, comparator, limit);
+                PlayerScan.Matches inOnePass = sequential.scan(players, filters, comparator, limit);
+                assertEquals("Неверное число совпадений", expected.size(), fromSegments.getMatched());
+                assertEquals("Неверное число совпадений", expected.size(), inOnePass.getMatched());
+                assertEquals("Неверный порядок для " + order + ", limit " + limit, first, fromSegments.getFirst());
+                assertEquals("Неверный порядок для " + order + ", limit " + limit, first, inOnePass.getFirst());
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void smallScansStayOnCallingThread() {
+        List<Player> players = players(50);
+        PlayerScan.Matches matches = parallel.scan(players, Collections.emptyList(),
+                PlayerScan.comparator(PlayerOrder.ID), 10);
+        assertEquals("Неверное число совпадений", 50, matches.getMatched());
+        players.sort(PlayerScan.comparator(PlayerOrder.ID));
+        assertEquals("Неверная страница", players.subList(0, 10), matches.getFirst());
+        sequential.scan(players(1_000), Collections.emptyList(), PlayerScan.comparator(PlayerOrder.ID), 10);
+        String metrics = metricsRegistry.scrape();
+        assertTrue("Ожидался последовательный проход",
+                metrics.contains("player_scan_total{mode=\"sequential\"} 2"));
+        assertTrue("Параллельных проходов быть не должно", !metrics.contains("mode=\"parallel\""));
+    }
+
+    // Few distinct names and levels, so ties have to be broken by id.
+    private static List<Player> players(int size) {
+        Random random = new Random(7);
+        List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Player player = new Player();
+            player.setId((long) i + 1);
+            player.setName("Игрок" + random.nextInt(40));
+            player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+            player.setExperience(random.nextInt(500));
+            player.setLevel(random.nextInt(10));
+            player.setBirthday(new Date(946_684_800_000L + random.nextInt(30) * 86_400_000L));
+            players.add(player);
+        }
+        Collections.shuffle(players, random);
+        return players;
+    }
+}
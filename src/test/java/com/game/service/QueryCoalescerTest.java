@@ -0,0 +1,187 @@
+package com.game.service;
+
+import com.game.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class QueryCoalescerTest {
+    private static final List<String> KEY = Collections.singletonList("EXPERIENCE");
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch evaluating = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    @After
+    public void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    //test1
+    @Test
+    public void concurrentCallsShareOneEvaluation() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(5_000, metricsRegistry);
+        Future<String> leader = executor.submit(() -> coalescer.coalesce("filter", KEY, blockingEvaluation()));
+        evaluating.await();
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            followers.add(executor.submit(() -> coalescer.coalesce("filter", KEY, blockingEvaluation())));
+        }
+        awaitFollowers(10);
+        String other = coalescer.coalesce("filter", Collections.singletonList("LEVEL"), () -> "other");
+        release.countDown();
+
+        assertEquals("Неверный результат ведущего вызова", "result", leader.get());
+        for (Future<String> follower : followers) {
+            assertEquals("Неверный результат присоединившегося вызова", "result", follower.get());
+        }
+        assertEquals("Другой ключ не должен ждать", "other", other);
+        assertEquals("Запрос должен выполниться один раз", 1, evaluations.get());
+        String metrics = metricsRegistry.scrape();
+        assertTrue("Нет счетчика ведущих вызовов",
+                metrics.contains("player_query_coalesced_total{query=\"filter\",role=\"leader\"} 2"));
+        assertTrue("Нет счетчика присоединившихся вызовов",
+                metrics.contains("player_query_coalesced_total{query=\"filter\",role=\"follower\"} 10"));
+        assertTrue("Неверная доля объединенных вызовов",
+                metrics.contains("player_query_coalescing_ratio 0.8333"));
+    }
+
+    //test2
+    @Test
+    public void waitingCallerTimesOutOrIsCancelledAlone() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(50, metricsRegistry);
+        Future<String> leader = executor.submit(() -> coalescer.coalesce("filter", KEY, blockingEvaluation()));
+        evaluating.await();
+
+        try {
+            coalescer.coalesce("filter", KEY, blockingEvaluation());
+            throw new AssertionError("Ожидание должно прерваться по таймауту");
+        } catch (QueryTimeoutException expected) {
+            assertTrue("Нет счетчика таймаутов", metricsRegistry.scrape()
+                    .contains("player_query_coalesce_timeouts_total{query=\"filter\"} 1"));
+        }
+
+        Thread.currentThread().interrupt();
+        try {
+            coalescer.coalesce("filter", KEY, blockingEvaluation());
+            throw new AssertionError("Прерванный вызов должен быть отменен");
+        } catch (CancellationException expected) {
+            assertTrue("Флаг прерывания должен сохраниться", Thread.interrupted());
+        }
+
+        release.countDown();
+        assertEquals("Ведущий вызов не должен пострадать", "result", leader.get());
+        assertEquals("Запрос должен выполниться один раз", 1, evaluations.get());
+    }
+
+    //test3
+    @Test
+    public void failuresAreSharedButInterruptedLeaderIsReplaced() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(5_000, metricsRegistry);
+        Future<String> failing = executor.submit(() -> coalescer.coalesce("filter", KEY, () -> {
+            evaluating.countDown();
+            await(release);
+            throw new IllegalStateException("database is down");
+        }));
+        evaluating.await();
+        Future<String> follower = executor.submit(() -> coalescer.coalesce("filter", KEY, () -> "unused"));
+        awaitFollowers(1);
+        release.countDown();
+        assertCause("Ошибка должна дойти до ведущего вызова", failing);
+        assertCause("Ошибка должна дойти до присоединившегося вызова", follower);
+
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        Future<String> interrupted = executor.submit(() -> coalescer.coalesce("filter", KEY, () -> {
+            leaderStarted.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CancellationException("request aborted");
+        }));
+        leaderStarted.await();
+        Future<String> retried = executor.submit(() -> coalescer.coalesce("filter", KEY, () -> "fresh"));
+        awaitFollowers(1);
+        interrupted.cancel(true);
+        assertEquals("После отмены ведущего вызова запрос должен выполниться заново", "fresh",
+                retried.get(5, TimeUnit.SECONDS));
+    }
+
+    //test4
+    @Test
+    public void writeDetachesRunningEvaluation() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(5_000, metricsRegistry);
+        Future<String> leader = executor.submit(() -> coalescer.coalesce("filter", KEY, blockingEvaluation()));
+        evaluating.await();
+        coalescer.onDeleted(null);
+
+        assertEquals("После изменения запрос должен выполниться заново", "after write",
+                coalescer.coalesce("filter", KEY, () -> "after write"));
+        release.countDown();
+        assertEquals("Неверный результат ведущего вызова", "result", leader.get());
+    }
+
+    private Supplier<String> blockingEvaluation() {
+        return () -> {
+            evaluations.incrementAndGet();
+            evaluating.countDown();
+            await(release);
+            return "result";
+        };
+    }
+
+    private void awaitFollowers(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!metricsRegistry.scrape().contains("player_query_flights 1") || waiting() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Вызовы не присоединились к выполняемому запросу");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static long waiting() {
+        return Thread.getAllStackTraces().values().stream()
+                .filter(stack -> Arrays.stream(stack).anyMatch(frame -> frame.getMethodName().equals("follow")
+                        && frame.getClassName().equals(QueryCoalescer.class.getName())))
+                .count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private static void assertCause(String message, Future<String> future) throws InterruptedException {
+        try {
+            future.get();
+            throw new AssertionError(message);
+        } catch (ExecutionException e) {
+            assertTrue(message, e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
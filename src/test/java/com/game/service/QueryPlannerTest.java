@@ -0,0 +1,120 @@
+package com.game.service;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.index.ColumnStatistics;
+import com.game.metrics.MetricsRegistry;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class QueryPlannerTest {
+    private final ColumnStatistics statistics = new ColumnStatistics(64);
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final QueryPlanner planner = new QueryPlanner(statistics, metricsRegistry, 500, 2, 8, 10, 0.1, 0.5,
+            true);
+
+    //test1
+    @Test
+    public void histogramsEstimateSkewedColumns() {
+        List<Player> players = players(20_000);
+        statistics.reload(players);
+
+        // Experience is squared, so most players sit at the low end.
+        assertNear("experience", share(players, player -> player.getExperience() <= 100_000),
+                statistics.fractionExperience(null, 100_000));
+        assertNear("experience", share(players, player -> player.getExperience() >= 2_000_000
+                && player.getExperience() <= 5_000_000), statistics.fractionExperience(2_000_000, 5_000_000));
+        assertNear("level", share(players, player -> player.getLevel() >= 100),
+                statistics.fractionLevel(100, null));
+        assertNear("race", share(players, player -> player.getRace() == Race.ELF), statistics.fraction(Race.ELF));
+
+        Player moved = new Player(players.get(0));
+        moved.setRace(Race.ELF);
+        statistics.onSaved(players.get(0), moved);
+        statistics.onDeleted(players.get(1));
+        assertEquals("Число строк должно учитывать удаление", 19_999L, statistics.rows());
+    }
+
+    //test2
+    @Test
+    public void selectiveIndexedFiltersArePushedDownAndSubstringsOfSmallTablesScanned() {
+        statistics.reload(players(100_000));
+        QueryPlanner.Plan indexed = planner.plan("filter",
+                filter("", "", Race.ELF, Profession.SORCERER, null, null, 50_000, 150_000), PlayerOrder.NAME,
+                PageRequest.of(0, 20));
+        assertEquals("Ожидалось выполнение в SQL", QueryPlanner.Strategy.PUSHDOWN, indexed.getStrategy());
+        assertTrue("Ожидался индекс по расе, профессии и опыту: " + indexed,
+                indexed.toString().contains("idx_player_race_profession_experience"));
+        QueryPlanner.Plan ordered = planner.plan("filter", filter("", "", null, null, null, false, null, null),
+                PlayerOrder.EXPERIENCE, PageRequest.of(2, 10));
+        assertTrue("Ожидался обход индекса по опыту: " + ordered,
+                ordered.toString().contains("idx_player_experience in order"));
+
+        statistics.reload(players(40));
+        QueryPlanner.Plan substrings = planner.plan("filter", filter("а", "о", null, null, null, null, null, null),
+                PlayerOrder.ID, PageRequest.of(0, 3));
+        assertEquals("Ожидался просмотр в памяти", QueryPlanner.Strategy.SCAN, substrings.getStrategy());
+        assertTrue("Нет счетчика планов",
+                metricsRegistry.scrape().contains("player_query_plans_total{query=\"filter\",strategy=\"scan\"} 1"));
+    }
+
+    //test3
+    @Test
+    public void substringsAndNameOrderRunInSqlUnderACollation() {
+        QueryPlanner collated = new QueryPlanner(statistics, metricsRegistry, 500, 2, 8, 10, 0.1, 0.5, false);
+        statistics.reload(players(40));
+        PlayerFilter substrings = filter("а", "о", null, null, null, null, null, null);
+        assertEquals("При двоичном сравнении строк маленькую таблицу выгоднее просмотреть", QueryPlanner.Strategy.SCAN,
+                planner.plan("filter", substrings, PlayerOrder.ID, PageRequest.of(0, 3)).getStrategy());
+        assertEquals("Подстроки должны сравниваться по правилам базы", QueryPlanner.Strategy.PUSHDOWN,
+                collated.plan("filter", substrings, PlayerOrder.ID, PageRequest.of(0, 3)).getStrategy());
+        assertEquals("Подсчет по подстрокам должен выполняться в базе", QueryPlanner.Strategy.PUSHDOWN,
+                collated.plan("count", substrings, PlayerOrder.ID, null).getStrategy());
+    }
+
+    private static PlayerFilter filter(String name, String title, Race race, Profession profession, Long after,
+                                       Boolean banned, Integer minExperience, Integer maxExperience) {
+        return new PlayerFilter(name, title, race, profession, after, null, banned, minExperience, maxExperience,
+                null, null);
+    }
+
+    private static void assertNear(String column, double expected, double estimate) {
+        assertTrue("Оценка для " + column + " " + estimate + " далека от " + expected,
+                Math.abs(expected - estimate) <= 0.02);
+    }
+
+    private static double share(List<Player> players, Predicate<Player> condition) {
+        return players.stream().filter(condition).count() / (double) players.size();
+    }
+
+    private static List<Player> players(int size) {
+        Random random = new Random(11);
+        List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Player player = new Player();
+            player.setId((long) i + 1);
+            player.setName("Игрок" + i);
+            player.setTitle("Титул" + i % 100);
+            player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+            player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+            double root = random.nextDouble();
+            player.setExperience((int) (root * root * 10_000_000));
+            player.setLevel((int) ((Math.sqrt(2500 + 200 * player.getExperience()) - 50) / 100));
+            player.setBirthday(new Date(946_684_800_000L + random.nextInt(4_000) * 86_400_000L));
+            player.setBanned(random.nextInt(10) == 0);
+            players.add(player);
+        }
+        return players;
+    }
+}
@@ -0,0 +1,181 @@
+package com.game.service;
+
+import com.game.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongUnaryOperator;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+
+public class UpdateLanesTest {
+    private static final int THREADS = 8;
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private final UpdateLanes lanes = new UpdateLanes(1024, metricsRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //test1
+    @Test
+    public void mutationsOfOnePlayerAreNeverLost() throws Exception {
+        long[] experience = new long[1];
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        runConcurrently(thread -> 42, 5_000, () -> {
+            if (running.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            experience[0]++;
+            running.decrementAndGet();
+        });
+
+        assertEquals("Изменения одного игрока не должны пересекаться", 0, overlaps.get());
+        assertEquals("Изменения одного игрока потерялись", (long) THREADS * 5_000, experience[0]);
+        assertTrue("Изменения других вызовов должны выполняться за них",
+                metricsRegistry.scrape().contains("player_update_lane_handovers_total"));
+
+        try {
+            lanes.run(42, () -> {
+                throw new IllegalStateException("conflict");
+            });
+            fail("Исключение должно дойти до вызвавшего");
+        } catch (IllegalStateException e) {
+            assertEquals("Неверное исключение", "conflict", e.getMessage());
+        }
+        assertEquals("Полоса должна работать после исключения", "ok", lanes.run(42, () -> "ok"));
+    }
+
+    //test2
+    @Test
+    public void differentPlayersProceedInParallel() throws Exception {
+        // The mutations wait like a database round trip does, so the comparison holds on a single core too.
+        Runnable roundTrip = () -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        long samePlayer = runConcurrently(thread -> 7, 20, roundTrip);
+        long ownPlayers = runConcurrently(thread -> thread * 1_000 + 1, 20, roundTrip);
+
+        assertTrue("Один игрок должен обновляться последовательно: " + samePlayer + " нс",
+                samePlayer >= TimeUnit.MILLISECONDS.toNanos(5 * 20 * THREADS));
+        assertTrue("Разные игроки должны обновляться параллельно: " + ownPlayers + " нс против " + samePlayer,
+                ownPlayers * 3 < samePlayer);
+    }
+
+    //test3
+    @Test
+    public void interruptedCallerWaitsWithoutSpinningAndKeepsTheInterrupt() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> lanes.run(3, () -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holding.await();
+
+        boolean[] keptInterrupt = new boolean[1];
+        Thread waiter = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            lanes.run(3, () -> null);
+            keptInterrupt[0] = Thread.currentThread().isInterrupted();
+        });
+        waiter.start();
+        Thread.sleep(300);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpu = threads.getThreadCpuTime(waiter.getId());
+        release.countDown();
+        waiter.join(10_000);
+        holder.get(10, TimeUnit.SECONDS);
+
+        assertTrue("Прерванный вызов не должен крутиться в ожидании: " + cpu + " нс",
+                cpu < TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue("Прерывание должно сохраниться для вызвавшего", keptInterrupt[0]);
+    }
+
+    //test4
+    @Test
+    public void handedOverMutationsSeeTheirCallersRequest() throws Exception {
+        AtomicInteger mismatches = new AtomicInteger();
+        List<Future<?>> threads = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setAttribute("caller", thread);
+            int caller = thread;
+            threads.add(executor.submit(() -> {
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+                try {
+                    for (int i = 0; i < 5_000; i++) {
+                        Object seen = lanes.run(11, () -> RequestContextHolder.currentRequestAttributes()
+                                .getAttribute("caller", RequestAttributes.SCOPE_REQUEST));
+                        if (!Integer.valueOf(caller).equals(seen)
+                                || RequestContextHolder.getRequestAttributes().getAttribute("caller",
+                                RequestAttributes.SCOPE_REQUEST) != seen) {
+                            mismatches.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get(60, TimeUnit.SECONDS);
+        }
+
+        assertTrue("Изменения должны выполняться и за других вызывающих",
+                metricsRegistry.counter("player_update_lane_handovers_total",
+                        "Mutations run by the caller of another mutation queued ahead of them in the same lane")
+                        .get() > 0);
+        assertEquals("Изменение должно видеть запрос своего вызова", 0, mismatches.get());
+    }
+
+    // Every thread runs the mutation count times on the id it is given; returns the elapsed nanoseconds.
+    private long runConcurrently(LongUnaryOperator idOfThread, int count, Runnable mutation) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> threads = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long id = idOfThread.applyAsLong(thread);
+            threads.add(executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    lanes.run(id, () -> {
+                        mutation.run();
+                        return null;
+                    });
+                }
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get(60, TimeUnit.SECONDS);
+        }
+        return System.nanoTime() - start;
+    }
+}